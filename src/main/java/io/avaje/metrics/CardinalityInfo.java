@@ -0,0 +1,56 @@
+package io.avaje.metrics;
+
+/**
+ * Bean holding the cardinality limit details for a group of metrics (or the global limit).
+ * <p>
+ * This is simple data bean intended to be passed to a front end, converted to JSON etc.
+ * </p>
+ */
+public class CardinalityInfo {
+
+  final String name;
+
+  final int limit;
+
+  final int count;
+
+  final long droppedCount;
+
+  /**
+   * Construct with the group name, limit, current count and dropped count.
+   */
+  public CardinalityInfo(String name, int limit, int count, long droppedCount) {
+    this.name = name;
+    this.limit = limit;
+    this.count = count;
+    this.droppedCount = droppedCount;
+  }
+
+  /**
+   * Return the base metric name of the group (or "global" for the global limit).
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Return the maximum number of distinct metrics allowed.
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Return the current number of distinct metrics.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Return the number of times a name was not admitted and was routed to the overflow metric.
+   */
+  public long getDroppedCount() {
+    return droppedCount;
+  }
+}
@@ -0,0 +1,42 @@
+package io.avaje.metrics;
+
+/**
+ * LocalRecorder for a CounterMetric.
+ */
+final class CounterLocalRecorder implements LocalRecorder {
+
+  private final CounterMetric metric;
+
+  private final int flushEvery;
+
+  private int events;
+
+  private long total;
+
+  CounterLocalRecorder(CounterMetric metric, int flushEvery) {
+    this.metric = metric;
+    this.flushEvery = Math.max(1, flushEvery);
+  }
+
+  @Override
+  public void add(long value) {
+    total += value;
+    if (++events >= flushEvery) {
+      flush();
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (events > 0) {
+      metric.inc(total);
+      events = 0;
+      total = 0;
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+}
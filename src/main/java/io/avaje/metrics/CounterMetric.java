@@ -33,6 +33,16 @@ public interface CounterMetric extends Metric {
    */
   void inc(long value);
 
+  /**
+   * Return a thread confined recorder that flushes to this counter every flushEvery events and on close.
+   * <p>
+   * This avoids contended atomic operations when incrementing the counter in tight loops.
+   * </p>
+   */
+  default LocalRecorder localRecorder(int flushEvery) {
+    return new CounterLocalRecorder(this, flushEvery);
+  }
+
   /**
    * Return the current count.
    */
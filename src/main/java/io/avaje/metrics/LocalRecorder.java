@@ -0,0 +1,44 @@
+package io.avaje.metrics;
+
+/**
+ * A thread confined recorder that accumulates into plain fields and flushes to the shared metric.
+ * <p>
+ * This is used in tight loops (e.g. stream processing) to avoid contended atomic operations on
+ * every event. The accumulated values are flushed to the metric every N events and on close
+ * such that the reported totals are exact.
+ * </p>
+ * <pre>{@code
+ *
+ *   try (LocalRecorder recorder = bytesReadMetric.localRecorder(1000)) {
+ *     for (Record record : records) {
+ *       recorder.add(record.size());
+ *       ...
+ *     }
+ *   }
+ *
+ * }</pre>
+ * <p>
+ * A LocalRecorder must only be used by a single thread.
+ * </p>
+ *
+ * @see CounterMetric#localRecorder(int)
+ * @see ValueMetric#localRecorder(int)
+ */
+public interface LocalRecorder extends AutoCloseable {
+
+  /**
+   * Add the value (the increment for a counter or the event value for a value metric).
+   */
+  void add(long value);
+
+  /**
+   * Flush the accumulated values to the metric.
+   */
+  void flush();
+
+  /**
+   * Flush the accumulated values to the metric.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,69 @@
+package io.avaje.metrics;
+
+/**
+ * Metric that measures the rate of events with exponentially weighted moving averages.
+ * <p>
+ * In addition to the count of events this provides the 1, 5 and 15 minute exponentially
+ * weighted moving average rates (like Unix load averages) and an instantaneous rate. These are
+ * intended for adaptive throttling decisions made on the hot path.
+ * </p>
+ * <pre>
+ * <code>
+ *  // Declare the meter (typically as a static field)
+ *  static final MeterMetric requestMeter = MetricManager.meter(MyService.class, "requests");
+ *  ...
+ *
+ *  void handleRequest() {
+ *
+ *    requestMeter.mark();
+ *    if (requestMeter.getOneMinuteRate() &gt; maxRate) {
+ *      // shed load
+ *    }
+ *    ...
+ *  }
+ *
+ * </code>
+ * </pre>
+ * <p>
+ * The moving averages are updated lazily (when the meter is marked or read and a tick interval
+ * has elapsed) and lock free such that there is no background timer.
+ * </p>
+ */
+public interface MeterMetric extends Metric {
+
+  /**
+   * Mark the occurrence of an event.
+   */
+  void mark();
+
+  /**
+   * Mark the occurrence of the given number of events.
+   */
+  void mark(long events);
+
+  /**
+   * Return the cumulative count of events marked (not reset by collection).
+   */
+  long getCount();
+
+  /**
+   * Return the instantaneous rate in events per second (over the most recent tick interval).
+   */
+  double getRate();
+
+  /**
+   * Return the one minute exponentially weighted moving average rate in events per second.
+   */
+  double getOneMinuteRate();
+
+  /**
+   * Return the five minute exponentially weighted moving average rate in events per second.
+   */
+  double getFiveMinuteRate();
+
+  /**
+   * Return the fifteen minute exponentially weighted moving average rate in events per second.
+   */
+  double getFifteenMinuteRate();
+
+}
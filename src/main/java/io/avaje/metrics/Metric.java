@@ -8,6 +8,7 @@ import io.avaje.metrics.statistics.MetricStatisticsVisitor;
  * <li>TimedMetric and BucketTimedMetric are used for monitoring execution time</li>
  * <li>CounterMetric is for counting discrete events like 'user logged in'</li>
  * <li>ValueMetric is used when events have a value like bytes sent, lines read</li>
+ * <li>MeterMetric is for the rate of events like 'requests per second'</li>
  * <li>Gauges measure the current value of a resource like 'used memory' or 'active threads'.</li>
  * </ul>
  */
@@ -19,14 +20,42 @@ public interface Metric {
   MetricName getName();
 
   /**
-   * Typically this is only called by the MetricManager and tells the metric to collect its underlying statistics for
-   * reporting purposes and in addition resetting and internal counters it has.
+   * Return true if the metric is enabled.
+   * <p>
+   * A disabled metric does not record (recording is a single predictable branch) and is not
+   * reported. Metrics are enabled and disabled via {@link MetricManager#disable(String)} and
+   * {@link MetricManager#enable(String)}.
+   * </p>
+   */
+  default boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * Typically this is only called by the MetricManager on behalf of a {@link MetricCursor} (the
+   * default cursor for the legacy collection methods) and tells the metric to collect its
+   * statistics since the last collection by that cursor for reporting purposes.
+   * <p>
+   * The underlying state is cumulative and is not reset by collection. When the statistics are
+   * striped each stripe is read as a unit (see the concurrency notes of {@link ValueMetric}) and
+   * the difference to the values the cursor last read is reported. An event that races with a
+   * collection is then reported whole in exactly one interval (either the one being collected or
+   * the next) for each cursor.
+   * </p>
+   * <p>
+   * Metrics that have not been written to since the last collection by the cursor are not
+   * collected at all (they are not in the dirty set of that cursor).
+   * </p>
    */
   void collect(MetricStatisticsVisitor collector);
 
   /**
    * Clear the statistics resetting any internal counters etc.
    * <p>
+   * For cursors this advances their last collected values to the current values such that the
+   * cleared events are not reported and deltas are never negative.
+   * </p>
+   * <p>
    * Typically the MetricManager takes care of resetting the statistic/counters for the metrics when
    * it periodically collects and reports all the metrics and you are not expected to use this method.
    * </p>
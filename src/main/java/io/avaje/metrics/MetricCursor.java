@@ -0,0 +1,82 @@
+package io.avaje.metrics;
+
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+import java.util.List;
+
+/**
+ * A collection cursor for a reporter that collects the deltas since its own last collection.
+ * <p>
+ * Metrics hold cumulative (monotonic) state that collection never resets and each cursor
+ * remembers the values it last collected. This means multiple reporters (e.g. a JSON log
+ * reporter and a Prometheus scrape) can each collect independently without draining the data
+ * of the other. The per cursor state is held as primitive values indexed by metric rather than
+ * copies of the metrics.
+ * </p>
+ * <p>
+ * The legacy collection methods ({@link MetricManager#collectNonEmptyMetrics()},
+ * {@link MetricManager#collect(io.avaje.metrics.statistics.MetricStatisticsVisitor)} and
+ * {@link MetricManager#collectAsJson()}) use a built in default cursor. They do not reset the
+ * metrics and so do not affect the deltas of other cursors.
+ * </p>
+ * <h3>Dirty set</h3>
+ * <p>
+ * Each cursor has its own dirty set. A metric adds itself to the dirty set of a cursor on its
+ * first write since that cursor last collected it (tracked by a per metric bit set of the cursors
+ * it is dirty for such that a write to an already dirty metric is a single read). A cursor only
+ * collects the metrics in its own dirty set and removing a metric from it does not affect other
+ * cursors. The number of cursors is small and bounded.
+ * </p>
+ * <h3>Max</h3>
+ * <p>
+ * As max values can not be derived from cumulative state each metric keeps a max slot per cursor.
+ * Recording updates the slots (a read only compare when the value is not a new max) and a cursor
+ * swaps only its own slot on collection. The max reported is the max since the last collection by
+ * this cursor.
+ * </p>
+ * <h3>Clear</h3>
+ * <p>
+ * {@link Metric#clear()} advances the last collected values of every cursor to the current values
+ * of the metric. The events recorded before the clear are then not reported by any cursor and the
+ * deltas are never negative.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once per reporter
+ *   MetricCursor cursor = MetricManager.cursor("prometheus");
+ *
+ *   // each report
+ *   List<MetricStatistics> deltas = cursor.collectMetrics();
+ *
+ * }</pre>
+ *
+ * @see MetricManager#cursor(String)
+ */
+public interface MetricCursor extends AutoCloseable {
+
+  /**
+   * Return the name of the reporter this cursor is for.
+   */
+  String getName();
+
+  /**
+   * Return the non-empty metrics with the deltas since the last collection by this cursor.
+   */
+  List<MetricStatistics> collectMetrics();
+
+  /**
+   * Collect the non-empty metrics with the deltas since the last collection by this cursor
+   * visiting each one as it is collected.
+   */
+  void collect(MetricStatisticsVisitor visitor);
+
+  /**
+   * Close the cursor releasing its state (including its dirty set and max slots).
+   * <p>
+   * The default cursor used by the legacy collection methods is not closed.
+   * </p>
+   */
+  @Override
+  void close();
+}
@@ -3,11 +3,13 @@ package io.avaje.metrics;
 import io.avaje.metrics.spi.SpiMetricManager;
 import io.avaje.metrics.statistics.MetricStatistics;
 import io.avaje.metrics.statistics.MetricStatisticsAsJson;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.Executor;
 
 /**
  * Manages the creation and registration of Metrics.
@@ -17,6 +19,9 @@ import java.util.ServiceLoader;
  * <p>
  * This uses a service locator to initialise a underlying PluginMetricManager instance. A default
  * implementation of PluginMetricManager is provided by <em>avaje-metric-core</em>.
+ * <p>
+ * The static methods delegate to the default {@link MetricRegistry}. Isolated registries are
+ * created via {@link #createRegistry(String)}.
  */
 public class MetricManager {
 
@@ -54,6 +59,12 @@ public class MetricManager {
 
   /**
    * When a request completes it is reported to the manager.
+   * <p>
+   * The request timing is added to a bounded multi producer single consumer queue. When the
+   * queue is full the request timing is dropped and counted rather than blocking the request thread.
+   * </p>
+   *
+   * @see RequestTimingManager#getDroppedRequestTimingCount()
    */
   public static void reportTiming(RequestTiming requestTiming) {
     mgr.reportTiming(requestTiming);
@@ -147,6 +158,45 @@ public class MetricManager {
     return timed(name(name));
   }
 
+  /**
+   * Return a histogram TimedMetric given the name.
+   * <p>
+   * The histogram metric reports {@link io.avaje.metrics.statistics.HistogramStatistics} which
+   * includes percentile values like p50, p95, p99 and p999.
+   * </p>
+   */
+  public static TimedMetric histogram(MetricName name) {
+    return mgr.histogram(name);
+  }
+
+  /**
+   * Return a histogram TimedMetric that additionally keeps a mergeable sketch.
+   * <p>
+   * The sketch is reported via {@link io.avaje.metrics.statistics.HistogramStatistics#getSketch()}
+   * such that percentiles can be aggregated across many nodes.
+   * </p>
+   *
+   * @param name             The metric name
+   * @param relativeAccuracy The relative accuracy of the sketch (e.g. 0.02 for 2%)
+   */
+  public static TimedMetric histogram(MetricName name, double relativeAccuracy) {
+    return mgr.histogram(name, relativeAccuracy);
+  }
+
+  /**
+   * Return a histogram TimedMetric using the Class, name to derive the MetricName.
+   */
+  public static TimedMetric histogram(Class<?> cls, String eventName) {
+    return histogram(name(cls, eventName));
+  }
+
+  /**
+   * Return a histogram TimedMetric given the name.
+   */
+  public static TimedMetric histogram(String name) {
+    return histogram(name(name));
+  }
+
   /**
    * Return a CounterMetric given the name.
    */
@@ -168,6 +218,27 @@ public class MetricManager {
     return counter(name(cls, eventName));
   }
 
+  /**
+   * Return a MeterMetric given the name.
+   */
+  public static MeterMetric meter(MetricName name) {
+    return mgr.meter(name);
+  }
+
+  /**
+   * Return a MeterMetric using the Class and name to derive the MetricName.
+   */
+  public static MeterMetric meter(Class<?> cls, String eventName) {
+    return meter(name(cls, eventName));
+  }
+
+  /**
+   * Return a MeterMetric given the name.
+   */
+  public static MeterMetric meter(String name) {
+    return meter(name(name));
+  }
+
   /**
    * Return a ValueMetric given the name.
    */
@@ -189,6 +260,51 @@ public class MetricManager {
     return value(name(name));
   }
 
+  /**
+   * Return a TaggedMetricCache of TimedMetric with the base name and tag keys.
+   * <p>
+   * The metrics are looked up by their tag values and exporters emit the tags as labels.
+   * </p>
+   */
+  public static TaggedMetricCache<TimedMetric> taggedTimed(MetricName baseName, String... tagKeys) {
+    return mgr.taggedTimed(baseName, tagKeys);
+  }
+
+  /**
+   * Return a TaggedMetricCache of TimedMetric with the base name and tag keys.
+   */
+  public static TaggedMetricCache<TimedMetric> taggedTimed(String baseName, String... tagKeys) {
+    return taggedTimed(name(baseName), tagKeys);
+  }
+
+  /**
+   * Return a TaggedMetricCache of CounterMetric with the base name and tag keys.
+   */
+  public static TaggedMetricCache<CounterMetric> taggedCounter(MetricName baseName, String... tagKeys) {
+    return mgr.taggedCounter(baseName, tagKeys);
+  }
+
+  /**
+   * Return a TaggedMetricCache of CounterMetric with the base name and tag keys.
+   */
+  public static TaggedMetricCache<CounterMetric> taggedCounter(String baseName, String... tagKeys) {
+    return taggedCounter(name(baseName), tagKeys);
+  }
+
+  /**
+   * Return a TaggedMetricCache of ValueMetric with the base name and tag keys.
+   */
+  public static TaggedMetricCache<ValueMetric> taggedValue(MetricName baseName, String... tagKeys) {
+    return mgr.taggedValue(baseName, tagKeys);
+  }
+
+  /**
+   * Return a TaggedMetricCache of ValueMetric with the base name and tag keys.
+   */
+  public static TaggedMetricCache<ValueMetric> taggedValue(String baseName, String... tagKeys) {
+    return taggedValue(name(baseName), tagKeys);
+  }
+
   /**
    * Return the TimedMetricGroup with a based metric name.
    */
@@ -196,6 +312,21 @@ public class MetricManager {
     return mgr.timedGroup(baseName);
   }
 
+  /**
+   * Return the TimedMetricGroup with a base metric name and cardinality limit.
+   * <p>
+   * This should be used when the names are derived from request values (like URLs or tenant ids)
+   * such that the number of metrics is bounded. Names in excess of the limit are routed to a single
+   * metric with the {@link TimedMetricGroup#OVERFLOW_NAME} suffix.
+   * </p>
+   *
+   * @param baseName         the base metric name
+   * @param cardinalityLimit the maximum number of distinct metrics in the group
+   */
+  public static TimedMetricGroup timedGroup(MetricName baseName, int cardinalityLimit) {
+    return mgr.timedGroup(baseName, cardinalityLimit);
+  }
+
   /**
    * Return the TimedMetricGroup with a class providing the base metric name.
    * <p>
@@ -215,6 +346,43 @@ public class MetricManager {
     return timedGroup(MetricName.of(name));
   }
 
+  /**
+   * Disable the metrics whose name matches the expression (e.g. to switch off timing for noisy classes).
+   * <p>
+   * This takes effect at runtime and also applies to matching metrics that are registered later.
+   * A disabled metric does not record or report and the cost of recording is a single predictable branch.
+   * </p>
+   *
+   * @param nameMatchExpression The expression used to match metrics (see {@link MetricNameMatcher})
+   * @return The number of registered metrics that were disabled
+   */
+  public static int disable(String nameMatchExpression) {
+    return mgr.setEnabled(nameMatchExpression, false);
+  }
+
+  /**
+   * Enable the metrics whose name matches the expression.
+   *
+   * @param nameMatchExpression The expression used to match metrics (see {@link MetricNameMatcher})
+   * @return The number of registered metrics that were enabled
+   */
+  public static int enable(String nameMatchExpression) {
+    return mgr.setEnabled(nameMatchExpression, true);
+  }
+
+  /**
+   * Set the global limit on the number of registered metrics.
+   * <p>
+   * Metrics requested by name (e.g. {@link #counter(String)}) in excess of the limit are routed to
+   * an overflow metric of the same type and counted as dropped.
+   * </p>
+   *
+   * @see RequestTimingManager#getCardinalityLimits()
+   */
+  public static void setCardinalityLimit(int cardinalityLimit) {
+    mgr.setCardinalityLimit(cardinalityLimit);
+  }
+
   /**
    * Create and register a GaugeMetric using the gauge supplied.
    */
@@ -259,11 +427,27 @@ public class MetricManager {
 
   /**
    * Return all the non-JVM registered metrics that are not empty.
+   * <p>
+   * This collects via the built in default {@link MetricCursor} (the deltas since the previous
+   * call) and does not affect other cursors.
+   * </p>
    */
   public static List<MetricStatistics> collectNonEmptyMetrics() {
     return mgr.collectNonEmptyMetrics();
   }
 
+  /**
+   * Return all the non-JVM registered metrics that are not empty collecting in parallel.
+   * <p>
+   * The registry is sharded by name hash and the shards are collected in parallel using the
+   * executor (for example <code>ForkJoinPool.commonPool()</code>). The metrics are returned in
+   * metric name order. This is intended for registries with a very large number of metrics.
+   * </p>
+   */
+  public static List<MetricStatistics> collectNonEmptyMetrics(Executor executor) {
+    return mgr.collectNonEmptyMetrics(executor);
+  }
+
   /**
    * Return JVM metrics that are not empty.
    */
@@ -271,6 +455,36 @@ public class MetricManager {
     return mgr.collectNonEmptyJvmMetrics();
   }
 
+  /**
+   * Collect the non-empty non-JVM metrics visiting each one as it is collected.
+   * <p>
+   * This avoids building a list of statistics and is used with streaming writers like
+   * {@link io.avaje.metrics.statistics.MetricStatisticsJsonWriter}.
+   * </p>
+   * <p>
+   * Like {@link #collectNonEmptyMetrics()} this collects via the default cursor and only visits
+   * the registered metrics in its dirty set. The JVM metrics (including the JVM gauges) are not
+   * visited and are collected via {@link #collectNonEmptyJvmMetrics()}.
+   * </p>
+   */
+  public static void collect(MetricStatisticsVisitor visitor) {
+    mgr.collect(visitor);
+  }
+
+  /**
+   * Create a collection cursor for the named reporter.
+   * <p>
+   * The {@link #collectNonEmptyMetrics()} methods collect via a single built in default cursor
+   * such that only a single reporter can use them. Instead each additional reporter uses its own
+   * cursor which collects the deltas (and max) since that cursor last collected.
+   * </p>
+   *
+   * @param reporterName The name of the reporter (e.g. "prometheus")
+   */
+  public static MetricCursor cursor(String reporterName) {
+    return mgr.cursor(reporterName);
+  }
+
   /**
    * Collect the JVM metrics with support for writing them as JSON.
    */
@@ -278,6 +492,35 @@ public class MetricManager {
     return mgr.collectAsJson();
   }
 
+  /**
+   * Collect the metrics with support for writing them as JSON collecting the shards in parallel
+   * using the executor (written in metric name order).
+   */
+  public static MetricStatisticsAsJson collectAsJson(Executor executor) {
+    return mgr.collectAsJson(executor);
+  }
+
+  /**
+   * Return the default registry (that the static methods of MetricManager delegate to).
+   */
+  public static MetricRegistry defaultRegistry() {
+    return mgr;
+  }
+
+  /**
+   * Create an isolated registry with its own metrics, collection and lifecycle.
+   * <p>
+   * Typically used to separate the metrics of tenants or plugins. The registry is collected via
+   * its own collect methods (and not included in the collection of the default registry) and
+   * closed when no longer required. The JVM metrics are shared via the default registry.
+   * </p>
+   *
+   * @param name The name of the registry (e.g. the tenant id)
+   */
+  public static MetricRegistry createRegistry(String name) {
+    return mgr.createRegistry(name);
+  }
+
   /**
    * Return the built in JVM metrics support to register collection of all or some
    * of the built in JVM metrics.
@@ -2,6 +2,15 @@ package io.avaje.metrics;
 
 /**
  * The name of the metric.
+ * <p>
+ * In addition to the dot separated name a metric name can have {@link Tags} (dimensions like
+ * status code or region) which exporters emit as labels. Names with different tags are
+ * different metrics.
+ * </p>
+ * <p>
+ * MetricName instances are immutable and implementations compute their hashCode once on
+ * construction such that they are cheap to use as map keys and to compare.
+ * </p>
  */
 public interface MetricName extends Comparable<MetricName> {
 
@@ -27,11 +36,30 @@ public interface MetricName extends Comparable<MetricName> {
    */
   String getSimpleName();
 
+  /**
+   * Return the name as UTF-8 bytes.
+   * <p>
+   * This is precomputed such that reporters can write the name without encoding it each
+   * time it is reported. The returned array is shared and must not be modified.
+   * </p>
+   */
+  byte[] getNameBytes();
+
   /**
    * Create and return another MetricName by appending the suffix.
    */
   MetricName append(String suffix);
 
+  /**
+   * Return the tags of the metric name (empty if the name has no tags).
+   */
+  Tags getTags();
+
+  /**
+   * Create and return another MetricName with the same name and the given tags.
+   */
+  MetricName withTags(Tags tags);
+
   /**
    * Return true if the metric name starts with the given prefix.
    */
@@ -6,6 +6,11 @@ package io.avaje.metrics;
  * Typically this is used when the full name of the metric is known at runtime and must be looked
  * up. Using this cache avoids extra parsing of the metrics name and this MetricNameCache exists for
  * that performance reason.
+ * <p>
+ * Implementations are non-blocking and bounded in size. When the bound is reached existing
+ * entries are evicted such that high cardinality names (e.g. names derived from request values)
+ * can not grow the heap unbounded. An evicted name is recreated on its next use.
+ * </p>
  */
 public interface MetricNameCache {
 
@@ -0,0 +1,195 @@
+package io.avaje.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled name match expression used to match/filter metric names.
+ * <p>
+ * The expression uses <code>*</code> as a wildcard and matching is case insensitive. A null or
+ * empty expression matches all names.
+ * </p>
+ * <h3>Example name match expressions:</h3>
+ * <pre>{@code
+ *
+ *   // starts with web.
+ *   "web.*"
+ *
+ *   // end with resource
+ *   "*resource"
+ *
+ *   // starts with web. and contains customer
+ *   "web.*customer*"
+ *
+ *   // starts with web. and contains customer and ends with resource
+ *   "web.*customer*resource"
+ *
+ * }</pre>
+ * <p>
+ * The literal {@link #getPrefix()} of the expression allows implementations to use a prefix index
+ * over the registered metric names such that matching is sub-linear for expressions that have a
+ * prefix. Compiled matchers are cached such that repeated queries with the same expression do not
+ * recompile.
+ * </p>
+ */
+public final class MetricNameMatcher {
+
+  private static final int MAX_CACHE_SIZE = 1000;
+
+  private static final Map<String, MetricNameMatcher> cache = new ConcurrentHashMap<>();
+
+  private static final MetricNameMatcher ALL = new MetricNameMatcher("", "", new String[0], null, false);
+
+  private final String expression;
+
+  private final String prefix;
+
+  private final String[] contains;
+
+  private final String suffix;
+
+  private final boolean exact;
+
+  private MetricNameMatcher(String expression, String prefix, String[] contains, String suffix, boolean exact) {
+    this.expression = expression;
+    this.prefix = prefix;
+    this.contains = contains;
+    this.suffix = suffix;
+    this.exact = exact;
+  }
+
+  /**
+   * Return the compiled matcher for the given expression.
+   */
+  public static MetricNameMatcher of(String expression) {
+    if (expression == null || expression.trim().isEmpty()) {
+      return ALL;
+    }
+    MetricNameMatcher matcher = cache.get(expression);
+    if (matcher == null) {
+      if (cache.size() >= MAX_CACHE_SIZE) {
+        cache.clear();
+      }
+      matcher = compile(expression);
+      cache.put(expression, matcher);
+    }
+    return matcher;
+  }
+
+  private static MetricNameMatcher compile(String expression) {
+    String[] parts = fold(expression.trim()).split("\\*", -1);
+    if (parts.length == 1) {
+      // no wildcard so must match exactly
+      return new MetricNameMatcher(expression, parts[0], new String[0], null, true);
+    }
+    int last = parts.length - 1;
+    int count = 0;
+    for (int i = 1; i < last; i++) {
+      if (!parts[i].isEmpty()) {
+        count++;
+      }
+    }
+    String[] contains = new String[count];
+    count = 0;
+    for (int i = 1; i < last; i++) {
+      if (!parts[i].isEmpty()) {
+        contains[count++] = parts[i];
+      }
+    }
+    return new MetricNameMatcher(expression, parts[0], contains, parts[last].isEmpty() ? null : parts[last], false);
+  }
+
+  /**
+   * Lower case each character independent of the default locale.
+   * <p>
+   * This is the same per character folding as the case insensitive <code>regionMatches</code>
+   * used to match names such that the expression and names fold the same way (for example in a
+   * Turkish locale where <code>"I".toLowerCase()</code> is a dotless i).
+   * </p>
+   */
+  private static String fold(String value) {
+    char[] chars = value.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Return the expression this matcher was compiled from.
+   */
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Return the literal (lower case) prefix of the expression or empty string if it has no prefix.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Return true if this matches all names.
+   */
+  public boolean isMatchAll() {
+    return this == ALL;
+  }
+
+  /**
+   * Return true if the metric name matches.
+   */
+  public boolean matches(MetricName name) {
+    return matches(name.getSimpleName());
+  }
+
+  /**
+   * Return true if the name matches.
+   */
+  public boolean matches(String name) {
+    if (this == ALL) {
+      return true;
+    }
+    int len = name.length();
+    if (exact) {
+      return len == prefix.length() && name.equalsIgnoreCase(prefix);
+    }
+    if (!name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+      return false;
+    }
+    int pos = prefix.length();
+    int end = len;
+    if (suffix != null) {
+      end = len - suffix.length();
+      if (end < pos || !name.regionMatches(true, end, suffix, 0, suffix.length())) {
+        return false;
+      }
+    }
+    for (String part : contains) {
+      pos = indexOf(name, part, pos, end);
+      if (pos < 0) {
+        return false;
+      }
+      pos += part.length();
+    }
+    return true;
+  }
+
+  /**
+   * Case insensitive index of the part in the name between from and end.
+   */
+  private static int indexOf(String name, String part, int from, int end) {
+    int max = end - part.length();
+    for (int i = from; i <= max; i++) {
+      if (name.regionMatches(true, i, part, 0, part.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+}
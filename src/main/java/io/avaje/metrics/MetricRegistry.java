@@ -0,0 +1,289 @@
+package io.avaje.metrics;
+
+import io.avaje.metrics.statistics.MetricStatistics;
+import io.avaje.metrics.statistics.MetricStatisticsAsJson;
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A registry of metrics with its own collection and lifecycle.
+ * <p>
+ * The static methods on {@link MetricManager} delegate to the default registry. Additional
+ * isolated registries (for example per tenant or per plugin) are created via
+ * {@link MetricManager#createRegistry(String)}. Each registry holds its own metrics such that
+ * registries can be collected independently (and in parallel) without global locks. The JVM
+ * metrics are shared and are only collected via the default registry.
+ * </p>
+ * <pre>{@code
+ *
+ *   MetricRegistry registry = MetricManager.createRegistry("tenant-a");
+ *
+ *   TimedMetric timed = registry.timed("web.api.orders");
+ *   ...
+ *
+ *   // collect just the metrics of this tenant
+ *   List<MetricStatistics> metrics = registry.collectNonEmptyMetrics();
+ *
+ *   // when the tenant is removed
+ *   registry.close();
+ *
+ * }</pre>
+ *
+ * @see MetricManager#defaultRegistry()
+ */
+public interface MetricRegistry extends AutoCloseable {
+
+  /**
+   * Return the name of the registry.
+   */
+  String getName();
+
+  /**
+   * Create a MetricName based on the class and name.
+   * Typically name is a method name.
+   */
+  MetricName name(Class<?> cls, String name);
+
+  /**
+   * Create a Metric name by parsing a name that is expected to include periods.
+   * <p>
+   * The name is expected to be in dot notation similar to <code>package.class.method</code>.
+   */
+  MetricName name(String name);
+
+  /**
+   * Return the MetricNameCache using the class as a base name.
+   * <p>
+   * The cache is on the hot path for dynamically named metrics and is expected to be lock free,
+   * checking for identity before equality on lookup and bounded in size.
+   * </p>
+   */
+  MetricNameCache nameCache(Class<?> cls);
+
+  /**
+   * Return the MetricNameCache using a MetricName as a base name.
+   */
+  MetricNameCache nameCache(MetricName baseName);
+
+  /**
+   * Return a TimedMetric given the name.
+   */
+  TimedMetric timed(MetricName name);
+
+  /**
+   * Return a TimedMetric given the name.
+   */
+  default TimedMetric timed(String name) {
+    return timed(name(name));
+  }
+
+  /**
+   * Return a BucketTimedMetric given the name and bucket ranges.
+   *
+   * @param name         The metric name
+   * @param bucketRanges Time in milliseconds which are used to create buckets.
+   */
+  TimedMetric timed(MetricName name, int... bucketRanges);
+
+  /**
+   * Return a histogram TimedMetric given the name.
+   * <p>
+   * In addition to the usual timed statistics this records into a log-linear fixed memory
+   * histogram (lock free) and reports {@link io.avaje.metrics.statistics.HistogramStatistics}
+   * with percentile values.
+   * </p>
+   */
+  TimedMetric histogram(MetricName name);
+
+  /**
+   * Return a histogram TimedMetric that keeps a mergeable sketch with the given relative accuracy.
+   * <p>
+   * The sketch is bounded in size and reported via
+   * {@link io.avaje.metrics.statistics.HistogramStatistics#getSketch()}.
+   * </p>
+   */
+  TimedMetric histogram(MetricName name, double relativeAccuracy);
+
+  /**
+   * Return a CounterMetric given the name.
+   */
+  CounterMetric counter(MetricName name);
+
+  /**
+   * Return a CounterMetric given the name.
+   */
+  default CounterMetric counter(String name) {
+    return counter(name(name));
+  }
+
+  /**
+   * Return a MeterMetric given the name.
+   */
+  MeterMetric meter(MetricName name);
+
+  /**
+   * Return a ValueMetric given the name.
+   */
+  ValueMetric value(MetricName name);
+
+  /**
+   * Return a ValueMetric given the name.
+   */
+  default ValueMetric value(String name) {
+    return value(name(name));
+  }
+
+  /**
+   * Return the TaggedMetricCache of TimedMetric for the base name and tag keys.
+   */
+  TaggedMetricCache<TimedMetric> taggedTimed(MetricName baseName, String... tagKeys);
+
+  /**
+   * Return the TaggedMetricCache of CounterMetric for the base name and tag keys.
+   */
+  TaggedMetricCache<CounterMetric> taggedCounter(MetricName baseName, String... tagKeys);
+
+  /**
+   * Return the TaggedMetricCache of ValueMetric for the base name and tag keys.
+   */
+  TaggedMetricCache<ValueMetric> taggedValue(MetricName baseName, String... tagKeys);
+
+  /**
+   * Return a TimedMetricGroup with a common base name.
+   */
+  TimedMetricGroup timedGroup(MetricName baseName);
+
+  /**
+   * Return a TimedMetricGroup with a common base name and cardinality limit.
+   * <p>
+   * Names in excess of the limit are routed to the overflow metric with an O(1) admission check.
+   * </p>
+   */
+  TimedMetricGroup timedGroup(MetricName baseName, int cardinalityLimit);
+
+  /**
+   * Create and register a gauge using the supplied double values.
+   */
+  GaugeDoubleMetric register(MetricName name, GaugeDouble gauge);
+
+  /**
+   * Create and register a gauge using the supplied long values.
+   */
+  GaugeLongMetric register(MetricName name, GaugeLong gauge);
+
+  /**
+   * Add a metric supplier. These metrics are then included in the collection of this registry.
+   */
+  void addSupplier(MetricSupplier supplier);
+
+  /**
+   * Enable or disable the metrics of this registry whose name matches the expression.
+   * <p>
+   * The setting also applies to matching metrics that are registered later. When disabled the
+   * recording methods of a metric (like <code>TimedMetric.add(long)</code> and
+   * <code>CounterMetric.inc()</code>) are a single predictable branch.
+   * </p>
+   *
+   * @return The number of registered metrics that matched
+   */
+  int setEnabled(String nameMatchExpression, boolean enabled);
+
+  /**
+   * Set the limit on the number of metrics registered with this registry.
+   * <p>
+   * Metrics requested by name in excess of the limit are routed to an overflow metric of
+   * the same type.
+   * </p>
+   */
+  void setCardinalityLimit(int cardinalityLimit);
+
+  /**
+   * Return all the (non-JVM) metrics registered with this registry.
+   */
+  Collection<Metric> getMetrics();
+
+  /**
+   * Collect all the metrics of this registry.
+   */
+  List<MetricStatistics> collectMetrics();
+
+  /**
+   * Collect all the metrics of this registry collecting the shards in parallel using the executor.
+   * <p>
+   * The registry is sharded by name hash (each shard with its own map and dirty set). Each shard
+   * is collected as a task on the executor (for example a ForkJoinPool) and returns its metrics
+   * sorted by name. The shard results are merged such that the metrics are returned in metric name
+   * order regardless of the number of shards or threads. The calling thread waits for the shard
+   * tasks to complete. This is for registries with a very large number of metrics where a single
+   * threaded collection would stall the reporter.
+   * </p>
+   */
+  List<MetricStatistics> collectMetrics(Executor executor);
+
+  /**
+   * Return the metrics of this registry that are non-empty. These are the metrics that have
+   * collected statistics since they were last collected by the default cursor.
+   * <p>
+   * This collects via the built in default {@link MetricCursor} and does not reset the metrics.
+   * Each cursor has its own lock free dirty set that a metric adds itself to on its first write
+   * since that cursor last collected it, such that the cost of collection is proportional to the
+   * number of active metrics rather than the number of registered metrics (see
+   * {@link MetricCursor} for the dirty set, max and clear contract).
+   * </p>
+   */
+  List<MetricStatistics> collectNonEmptyMetrics();
+
+  /**
+   * Return the metrics of this registry that are non-empty collecting the shards in parallel
+   * using the executor (returned in metric name order).
+   */
+  List<MetricStatistics> collectNonEmptyMetrics(Executor executor);
+
+  /**
+   * Collect the non-empty metrics of this registry visiting each one as it is collected.
+   * <p>
+   * Unlike {@link #collectNonEmptyMetrics()} this does not build a list of statistics but
+   * instead each metric visits the visitor as it is collected. This is the basis for streaming
+   * reporters like {@link io.avaje.metrics.statistics.MetricStatisticsJsonWriter}.
+   * </p>
+   * <p>
+   * Like {@link #collectNonEmptyMetrics()} this collects via the default cursor and only visits
+   * the metrics in its dirty set (those written to since the default cursor last collected). The
+   * JVM metrics (including the JVM gauges) are not visited, even on the default registry.
+   * </p>
+   */
+  void collect(MetricStatisticsVisitor visitor);
+
+  /**
+   * Create a collection cursor for the named reporter on this registry.
+   * <p>
+   * Each cursor collects the deltas since its own last collection using its own dirty set and
+   * max slots such that multiple reporters can collect independently.
+   * </p>
+   */
+  MetricCursor cursor(String reporterName);
+
+  /**
+   * Collect the metrics of this registry with support for writing them as JSON.
+   */
+  MetricStatisticsAsJson collectAsJson();
+
+  /**
+   * Collect the metrics of this registry with support for writing them as JSON collecting the
+   * shards in parallel using the executor (written in metric name order).
+   */
+  MetricStatisticsAsJson collectAsJson(Executor executor);
+
+  /**
+   * Close the registry releasing its metrics.
+   * <p>
+   * Metrics obtained from a closed registry can still be used but are no longer collected. The
+   * default registry is not closed (this has no effect on it).
+   * </p>
+   */
+  @Override
+  void close();
+}
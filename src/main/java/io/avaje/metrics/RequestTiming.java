@@ -4,6 +4,20 @@ import java.util.List;
 
 /**
  * Holds the details for a request including it's timing entries.
+ * <p>
+ * The entries are recorded into a flat primitive arena per request (metric id, depth, start and
+ * end nanos) rather than an object per entry. The indexed accessors read the arena directly and
+ * {@link #getEntries()} lazily returns lightweight views over it.
+ * </p>
+ * <pre>{@code
+ *
+ *   for (int i = 0; i < timing.getEntryCount(); i++) {
+ *     TimedMetric metric = timing.getMetric(i);
+ *     long nanos = timing.getEndNanos(i) - timing.getStartNanos(i);
+ *     ...
+ *   }
+ *
+ * }</pre>
  */
 public interface RequestTiming {
 
@@ -32,7 +46,35 @@ public interface RequestTiming {
 
   /**
    * Return the entries for the request.
+   * <p>
+   * These are lightweight views over the recorded entries that are created lazily.
+   * </p>
    */
   List<RequestTimingEntry> getEntries();
 
+  /**
+   * Return the number of entries for the request.
+   */
+  int getEntryCount();
+
+  /**
+   * Return the metric of the entry at the given index.
+   */
+  TimedMetric getMetric(int index);
+
+  /**
+   * Return the depth of the entry at the given index.
+   */
+  int getDepth(int index);
+
+  /**
+   * Return the start nanos of the entry at the given index.
+   */
+  long getStartNanos(int index);
+
+  /**
+   * Return the end nanos of the entry at the given index.
+   */
+  long getEndNanos(int index);
+
 }
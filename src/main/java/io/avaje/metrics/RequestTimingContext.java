@@ -0,0 +1,132 @@
+package io.avaje.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A captured request timing context that can be attached to another thread.
+ * <p>
+ * Request timing collects nested timing entries for the current request. When the work for a
+ * request is handed off to an executor, async callback or virtual thread the context is captured
+ * on the calling thread and attached on the thread executing the work such that the nested timing
+ * entries are collected into the same request.
+ * </p>
+ * <p>
+ * Capturing does not copy the timing entries and when there is no active request timing the
+ * captured context is a shared no-op instance (no allocation). Attaching holds only a single
+ * reference for the thread which is restored when the scope is closed such that there is no per
+ * thread growth (this maps to ScopedValue on JDKs that support it).
+ * </p>
+ * <pre>{@code
+ *
+ *   RequestTimingContext context = MetricManager.requestTimingManager().captureContext();
+ *
+ *   executor.submit(context.wrap(() -> {
+ *     // timed metrics here are collected as part of the request
+ *     ...
+ *   }));
+ *
+ * }</pre>
+ *
+ * @see RequestTimingManager#captureContext()
+ */
+public interface RequestTimingContext {
+
+  /**
+   * Return an executor that propagates the request timing context of the submitting thread.
+   */
+  static Executor propagating(Executor executor) {
+    return task -> executor.execute(MetricManager.requestTimingManager().captureContext().wrap(task));
+  }
+
+  /**
+   * Return true if this context has active request timing.
+   */
+  boolean isActive();
+
+  /**
+   * Attach this context to the current thread returning the scope that restores the prior context
+   * when closed.
+   * <pre>{@code
+   *
+   *   try (RequestTimingContext.Scope scope = context.attach()) {
+   *     ...
+   *   }
+   *
+   * }</pre>
+   */
+  Scope attach();
+
+  /**
+   * Wrap the task such that it runs with this context attached.
+   */
+  default Runnable wrap(Runnable task) {
+    if (!isActive()) {
+      return task;
+    }
+    return () -> {
+      Scope scope = attach();
+      try {
+        task.run();
+      } finally {
+        scope.close();
+      }
+    };
+  }
+
+  /**
+   * Wrap the task such that it runs with this context attached.
+   */
+  default <T> Callable<T> wrap(Callable<T> task) {
+    if (!isActive()) {
+      return task;
+    }
+    return () -> {
+      Scope scope = attach();
+      try {
+        return task.call();
+      } finally {
+        scope.close();
+      }
+    };
+  }
+
+  /**
+   * Wrap the supplier such that it runs with this context attached.
+   * <p>
+   * This is named differently to {@link #wrap(Callable)} such that a value returning lambda
+   * passed to <code>wrap</code> is not ambiguous.
+   * </p>
+   * <pre>{@code
+   *
+   *   CompletableFuture.supplyAsync(context.wrapSupplier(() -> load()), executor);
+   *
+   * }</pre>
+   */
+  default <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+    if (!isActive()) {
+      return supplier;
+    }
+    return () -> {
+      Scope scope = attach();
+      try {
+        return supplier.get();
+      } finally {
+        scope.close();
+      }
+    };
+  }
+
+  /**
+   * The scope of an attached context which restores the prior context when closed.
+   */
+  interface Scope extends AutoCloseable {
+
+    /**
+     * Detach the context restoring the prior context of the thread.
+     */
+    @Override
+    void close();
+  }
+}
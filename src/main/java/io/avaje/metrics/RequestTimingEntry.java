@@ -2,6 +2,10 @@ package io.avaje.metrics;
 
 /**
  * A timing point entry when collecting nested context timing.
+ * <p>
+ * This is typically a lightweight view over the primitive entry data held by the
+ * {@link RequestTiming}.
+ * </p>
  */
 public interface RequestTimingEntry extends Comparable<RequestTimingEntry> {
 
@@ -7,11 +7,42 @@ import java.util.List;
  */
 public interface RequestTimingManager {
 
+  /**
+   * The name of the counter metric of request timings dropped due to the queue being full.
+   */
+  String DROPPED_METRIC_NAME = "metrics.requestTiming.dropped";
+
   /**
    * Return the request timings that have been collected since the last collection.
+   * <p>
+   * Reported request timings are held in a bounded lock free queue and this drains the queue
+   * without holding a lock.
+   * </p>
    */
   List<RequestTiming> collectRequestTimings();
 
+  /**
+   * Return up to maxCount of the request timings that have been collected since the last collection.
+   * <p>
+   * This is used to drain the reported request timings in batches.
+   * </p>
+   */
+  List<RequestTiming> collectRequestTimings(int maxCount);
+
+  /**
+   * Set the capacity of the queue holding reported request timings.
+   * <p>
+   * When the queue is full reported request timings are dropped and counted by the
+   * {@link #DROPPED_METRIC_NAME} counter metric.
+   * </p>
+   */
+  void setRequestTimingCapacity(int capacity);
+
+  /**
+   * Return the total number of request timings dropped due to the queue being full.
+   */
+  long getDroppedRequestTimingCount();
+
   /**
    * Return all the timing metrics that are currently collecting per request timings and whose name
    * matches the name expression.
@@ -41,9 +72,16 @@ public interface RequestTimingManager {
    *
    * @param nameMatchExpression the expression used to match/filter metric names. Null or empty means match all.
    * @return timing metrics that are actively collecting request timings.
+   * @see MetricNameMatcher
    */
   List<TimingMetricInfo> getRequestTimingMetrics(String nameMatchExpression);
 
+  /**
+   * Return all the timing metrics that are currently collecting per request timings and whose name
+   * matches the compiled name matcher.
+   */
+  List<TimingMetricInfo> getRequestTimingMetrics(MetricNameMatcher matcher);
+
   /**
    * Return the list of all timing metrics that match the name expression.
    * <p>
@@ -69,9 +107,19 @@ public interface RequestTimingManager {
    *
    * @param nameMatchExpression the expression used to match/filter metric names. Null or empty means match all.
    * @return all timing metrics those name matches the expression.
+   * @see MetricNameMatcher
    */
   List<TimingMetricInfo> getAllTimingMetrics(String nameMatchExpression);
 
+  /**
+   * Return the list of all timing metrics whose name matches the compiled name matcher.
+   * <p>
+   * Implementations use a prefix index over the registered metric names such that expressions
+   * with a literal prefix are matched without scanning all the timing metrics.
+   * </p>
+   */
+  List<TimingMetricInfo> getAllTimingMetrics(MetricNameMatcher matcher);
+
   /**
    * Set request timing on for a metric matching the name.
    *
@@ -118,4 +166,51 @@ public interface RequestTimingManager {
    */
   List<TimingMetricInfo> setRequestTimingCollectionUsingMatch(String nameMatchExpression, int collectionCount);
 
+  /**
+   * Set request timing sampling on all the timed metrics whose name matches the expression.
+   * <p>
+   * 1 in sampleOneIn requests collect detailed timing and of those the slowestCount slowest
+   * requests per collection interval are retained and returned by {@link #collectRequestTimings()}.
+   * </p>
+   *
+   * @param nameMatchExpression The expression used to match timing metrics
+   * @param sampleOneIn         The sampling rate (0 to turn off sampling)
+   * @param slowestCount        The number of slowest requests retained per collection interval
+   * @return The timing metrics that had the request timing sampling set
+   * @see TimedMetric#setRequestTimingSampling(int, int)
+   */
+  List<TimingMetricInfo> setRequestTimingSamplingUsingMatch(String nameMatchExpression, int sampleOneIn, int slowestCount);
+
+  /**
+   * Set a slow request threshold on all the timed metrics whose name matches the expression.
+   * <p>
+   * Request timing is then collected cheaply for every request and only retained and reported
+   * when the request exceeds the threshold.
+   * </p>
+   *
+   * @param nameMatchExpression The expression used to match timing metrics
+   * @param thresholdMillis     The threshold in milliseconds (0 to turn off)
+   * @return The timing metrics that had the threshold set
+   * @see TimedMetric#setRequestTimingThreshold(long)
+   */
+  List<TimingMetricInfo> setRequestTimingThresholdUsingMatch(String nameMatchExpression, long thresholdMillis);
+
+  /**
+   * Capture the request timing context of the current thread such that it can be attached to
+   * the thread that continues the work of the request (executor, async callback or virtual thread).
+   * <p>
+   * When there is no active request timing this returns a no-op context.
+   * </p>
+   */
+  RequestTimingContext captureContext();
+
+  /**
+   * Return the cardinality limit details for the global limit and each limited metric group.
+   * <p>
+   * This includes the number of names dropped (routed to the overflow metric) such that
+   * high cardinality misuse can be identified.
+   * </p>
+   */
+  List<CardinalityInfo> getCardinalityLimits();
+
 }
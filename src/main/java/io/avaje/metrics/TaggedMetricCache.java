@@ -0,0 +1,45 @@
+package io.avaje.metrics;
+
+/**
+ * Cache of metrics that share a base name and tag keys and differ by their tag values.
+ * <p>
+ * Looking up a metric by its tag values hits a pre-resolved metric without building strings or
+ * allocating arrays (the fixed arity lookups avoid varargs). The tag values are supplied in the
+ * same order as the tag keys the cache was created with.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once (typically as a static field)
+ *   static final TaggedMetricCache<TimedMetric> requests = MetricManager.taggedTimed("web.requests", "status", "region");
+ *   ...
+ *
+ *   requests.get(status, region).add(startNanos);
+ *
+ * }</pre>
+ *
+ * @param <T> The type of metric
+ * @see MetricManager#taggedTimed(String, String...)
+ */
+public interface TaggedMetricCache<T extends Metric> {
+
+  /**
+   * Return the metric for the single tag value.
+   */
+  T get(String value);
+
+  /**
+   * Return the metric for the two tag values.
+   */
+  T get(String value1, String value2);
+
+  /**
+   * Return the metric for the three tag values.
+   */
+  T get(String value1, String value2, String value3);
+
+  /**
+   * Return the metric for the tag values (for more than three tags).
+   */
+  T get(String[] values);
+
+}
@@ -0,0 +1,141 @@
+package io.avaje.metrics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of tags (key value pairs) sorted by key.
+ * <p>
+ * Tags add dimensions to a {@link MetricName} (like status code or region) which exporters
+ * emit as labels rather than encoding them into the name.
+ * </p>
+ * <pre>{@code
+ *
+ *   Tags tags = Tags.of("region", "us-east", "status", "200");
+ *
+ * }</pre>
+ */
+public final class Tags {
+
+  /**
+   * Empty tags.
+   */
+  public static final Tags EMPTY = new Tags(new String[0]);
+
+  /**
+   * Alternating keys and values sorted by key.
+   */
+  private final String[] keyValues;
+
+  private final int hashCode;
+
+  private Tags(String[] keyValues) {
+    this.keyValues = keyValues;
+    this.hashCode = Arrays.hashCode(keyValues);
+  }
+
+  /**
+   * Create tags from alternating keys and values.
+   */
+  public static Tags of(String... keyValues) {
+    if (keyValues == null || keyValues.length == 0) {
+      return EMPTY;
+    }
+    if (keyValues.length % 2 != 0) {
+      throw new IllegalArgumentException("Tags require pairs of key and value but got " + keyValues.length + " strings");
+    }
+    for (String keyValue : keyValues) {
+      if (keyValue == null) {
+        throw new IllegalArgumentException("Tag keys and values can not be null");
+      }
+    }
+    String[] sorted = keyValues.clone();
+    // insertion sort by key as there are typically only a few tags
+    for (int i = 2; i < sorted.length; i += 2) {
+      String key = sorted[i];
+      String value = sorted[i + 1];
+      int j = i - 2;
+      while (j >= 0 && sorted[j].compareTo(key) > 0) {
+        sorted[j + 2] = sorted[j];
+        sorted[j + 3] = sorted[j + 1];
+        j -= 2;
+      }
+      sorted[j + 2] = key;
+      sorted[j + 3] = value;
+    }
+    for (int i = 2; i < sorted.length; i += 2) {
+      if (sorted[i].equals(sorted[i - 2])) {
+        throw new IllegalArgumentException("Duplicate tag key " + sorted[i]);
+      }
+    }
+    return new Tags(sorted);
+  }
+
+  /**
+   * Return true if there are no tags.
+   */
+  public boolean isEmpty() {
+    return keyValues.length == 0;
+  }
+
+  /**
+   * Return the number of tags.
+   */
+  public int size() {
+    return keyValues.length / 2;
+  }
+
+  /**
+   * Return the key of the tag at the given index.
+   */
+  public String getKey(int index) {
+    return keyValues[index * 2];
+  }
+
+  /**
+   * Return the value of the tag at the given index.
+   */
+  public String getValue(int index) {
+    return keyValues[index * 2 + 1];
+  }
+
+  /**
+   * Return the value for the given key or null if there is no tag with that key.
+   */
+  public String get(String key) {
+    for (int i = 0; i < keyValues.length; i += 2) {
+      if (keyValues[i].equals(key)) {
+        return keyValues[i + 1];
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Tags)) {
+      return false;
+    }
+    Tags other = (Tags) obj;
+    return hashCode == other.hashCode && Arrays.equals(keyValues, other.keyValues);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(keyValues[i]).append('=').append(keyValues[i + 1]);
+    }
+    return sb.toString();
+  }
+}
@@ -1,6 +1,10 @@
 package io.avaje.metrics;
 
+import io.avaje.metrics.statistics.WindowStatistics;
+
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
 /**
@@ -63,6 +67,20 @@ import java.util.function.Supplier;
  *
  * </code>
  * </pre>
+ *
+ * <h3>Allocation free recording</h3>
+ * <p>
+ * The start nanos approach above is the allocation free way to record timing. When request
+ * timing is not active implementations must not allocate when recording via {@link #add(long)},
+ * {@link #addErr(long)}, {@link #addEventSince(boolean, long)} or
+ * {@link #addEventDuration(boolean, long)} such that these are safe to use on hot paths that
+ * execute many times per second. While request timing is active recording additionally appends
+ * a timing entry which is near zero allocation (see {@link RequestTiming}) but not allocation free.
+ * </p>
+ * <p>
+ * In contrast {@link #startEvent()} instantiates a TimedEvent and {@link #time(Supplier)} and
+ * {@link #time(Runnable)} typically require a lambda capture at the call site.
+ * </p>
  */
 public interface TimedMetric extends Metric {
 
@@ -76,6 +94,48 @@ public interface TimedMetric extends Metric {
    */
   <T> T time(Supplier<T> event);
 
+  /**
+   * Times the asynchronous execution of the event recording success or error on completion.
+   * <p>
+   * The duration is measured until the returned stage completes rather than the time taken to
+   * create the stage. Exceptional completion (including cancellation) is recorded as an error.
+   * The supplied stage is returned as is and when it has already completed the event is recorded
+   * immediately without registering a completion action.
+   * </p>
+   * <p>
+   * When the supplier throws the event is recorded as an error and the exception rethrown. When
+   * the supplier returns null the event is recorded as an error and a NullPointerException thrown.
+   * </p>
+   * <pre>{@code
+   *
+   *   CompletionStage<Customer> customer = metric.timeAsync(() -> client.fetchCustomer(id));
+   *
+   * }</pre>
+   */
+  default <T> CompletionStage<T> timeAsync(Supplier<CompletionStage<T>> event) {
+    final long startNanos = System.nanoTime();
+    final CompletionStage<T> stage;
+    try {
+      stage = event.get();
+    } catch (RuntimeException | Error e) {
+      addEventSince(false, startNanos);
+      throw e;
+    }
+    if (stage == null) {
+      addEventSince(false, startNanos);
+      throw new NullPointerException("timeAsync event returned a null CompletionStage");
+    }
+    if (stage instanceof CompletableFuture) {
+      CompletableFuture<T> future = (CompletableFuture<T>) stage;
+      if (future.isDone()) {
+        addEventSince(!future.isCompletedExceptionally(), startNanos);
+        return stage;
+      }
+    }
+    stage.whenComplete((result, throwable) -> addEventSince(throwable == null, startNanos));
+    return stage;
+  }
+
   /**
    * Start an event.
    * <p>
@@ -137,6 +197,33 @@ public interface TimedMetric extends Metric {
    */
   void addEventDuration(boolean success, long durationNanos);
 
+  /**
+   * Specify to keep rolling window statistics using a ring of slots (e.g. 12 slots of 5 seconds).
+   * <p>
+   * The slots are rotated lazily by the recording thread (there is no background timer) and the
+   * memory used is fixed by the number of slots. Specify 0 slots to turn off the rolling window.
+   * </p>
+   *
+   * @param slots      The number of slots in the window
+   * @param slotMillis The duration of each slot in milliseconds
+   */
+  void setWindow(int slots, long slotMillis);
+
+  /**
+   * Return the statistics over the rolling window or null if a rolling window is not kept.
+   * <p>
+   * These statistics are not reset by collection and can be queried at any time.
+   * </p>
+   * <p>
+   * For histogram metrics (created via <code>MetricManager.histogram(...)</code>) the statistics
+   * are {@link io.avaje.metrics.statistics.WindowHistogramStatistics} which include percentiles
+   * (like p99) over the window.
+   * </p>
+   *
+   * @see #setWindow(int, long)
+   */
+  WindowStatistics getWindowStatistics();
+
   /**
    * Return true if this timed metric is part of a bucket range (and hence only hold statistics for the
    * bucket range returned by <code>bucketRange()</code>.
@@ -154,6 +241,10 @@ public interface TimedMetric extends Metric {
    * This means that the current thread is actively collecting timing entries and this metric
    * has been pushed onto the nested context.
    * </p>
+   * <p>
+   * The context follows the work of a request across threads when it is captured and attached
+   * via {@link RequestTimingContext}.
+   * </p>
    */
   boolean isRequestTiming();
 
@@ -169,6 +260,44 @@ public interface TimedMetric extends Metric {
    */
   void setRequestTiming(int collectionCount);
 
+  /**
+   * Specify to sample per request detailed timing collection.
+   * <p>
+   * Rather than collecting the first N requests (which are biased toward warm up) 1 in sampleOneIn
+   * requests collect detailed timing (the decision costs a single thread local random draw) and
+   * of those only the slowestCount slowest requests per collection interval are retained and
+   * reported. This captures request timing for the tail latency requests with bounded memory.
+   * </p>
+   *
+   * @param sampleOneIn  The sampling rate (1 for every request, 0 to turn off sampling)
+   * @param slowestCount The number of slowest sampled requests retained per collection interval
+   */
+  void setRequestTimingSampling(int sampleOneIn, int slowestCount);
+
+  /**
+   * Return the request timing sampling rate (0 when not sampling).
+   */
+  int getRequestTimingSampleRate();
+
+  /**
+   * Specify a latency threshold above which request timing is retained and reported.
+   * <p>
+   * The request timing entries are always collected into a pooled per request buffer and only
+   * when this top level metric exceeds the threshold is the request timing retained and reported
+   * via {@link RequestTimingManager#collectRequestTimings()}. Requests under the threshold return
+   * the buffer to the pool such that they do not allocate. This effectively makes request timing
+   * an always on tail latency profiler.
+   * </p>
+   *
+   * @param thresholdMillis The threshold in milliseconds (0 to turn off)
+   */
+  void setRequestTimingThreshold(long thresholdMillis);
+
+  /**
+   * Return the request timing threshold in milliseconds (0 when not set).
+   */
+  long getRequestTimingThreshold();
+
   /**
    * Return the number of remaining requests to collect detailed timing on.
    * <p>
@@ -4,9 +4,20 @@ package io.avaje.metrics;
  * A group of TimedMetric that share a common base name.
  * <p>
  * This is intended to be used when the full metric name is determined at runtime.
+ * <p>
+ * When the group has a cardinality limit names in excess of the limit are routed to a single
+ * metric with the {@link #OVERFLOW_NAME} suffix and counted as dropped.
+ * </p>
+ *
+ * @see MetricManager#timedGroup(MetricName, int)
  */
 public interface TimedMetricGroup {
 
+  /**
+   * The name suffix of the metric that names in excess of the cardinality limit are routed to.
+   */
+  String OVERFLOW_NAME = "_overflow";
+
   /**
    * Start the event for the given name.
    * <p>
@@ -23,6 +34,10 @@ public interface TimedMetricGroup {
 
   /**
    * Return the TimedMetric for the specific name.
+   * <p>
+   * If the name is not already known and the cardinality limit has been reached this returns
+   * the overflow metric.
+   * </p>
    */
   TimedMetric timed(String name);
 
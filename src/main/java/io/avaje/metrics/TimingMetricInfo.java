@@ -12,12 +12,35 @@ public class TimingMetricInfo {
 
   final int collectionCount;
 
+  final int sampleRate;
+
+  final int slowestCount;
+
+  final long thresholdMillis;
+
   /**
    * Construct with metric name and collection count.
    */
   public TimingMetricInfo(String name, int collectionCount) {
+    this(name, collectionCount, 0, 0);
+  }
+
+  /**
+   * Construct with metric name, collection count and sampling.
+   */
+  public TimingMetricInfo(String name, int collectionCount, int sampleRate, int slowestCount) {
+    this(name, collectionCount, sampleRate, slowestCount, 0);
+  }
+
+  /**
+   * Construct with metric name, collection count, sampling and slow request threshold.
+   */
+  public TimingMetricInfo(String name, int collectionCount, int sampleRate, int slowestCount, long thresholdMillis) {
     this.name = name;
     this.collectionCount = collectionCount;
+    this.sampleRate = sampleRate;
+    this.slowestCount = slowestCount;
+    this.thresholdMillis = thresholdMillis;
   }
 
   /**
@@ -36,4 +59,25 @@ public class TimingMetricInfo {
   public int getCollectionCount() {
     return collectionCount;
   }
+
+  /**
+   * Return the request timing sampling rate (1 in sampleRate requests) or 0 when not sampling.
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Return the number of slowest sampled requests retained per collection interval.
+   */
+  public int getSlowestCount() {
+    return slowestCount;
+  }
+
+  /**
+   * Return the slow request threshold in milliseconds (0 when not set).
+   */
+  public long getThresholdMillis() {
+    return thresholdMillis;
+  }
 }
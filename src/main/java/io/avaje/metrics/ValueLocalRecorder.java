@@ -0,0 +1,48 @@
+package io.avaje.metrics;
+
+/**
+ * LocalRecorder for a ValueMetric.
+ */
+final class ValueLocalRecorder implements LocalRecorder {
+
+  private final ValueMetric metric;
+
+  private final int flushEvery;
+
+  private int count;
+
+  private long total;
+
+  private long max = Long.MIN_VALUE;
+
+  ValueLocalRecorder(ValueMetric metric, int flushEvery) {
+    this.metric = metric;
+    this.flushEvery = Math.max(1, flushEvery);
+  }
+
+  @Override
+  public void add(long value) {
+    total += value;
+    if (value > max) {
+      max = value;
+    }
+    if (++count >= flushEvery) {
+      flush();
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (count > 0) {
+      metric.addAggregate(count, total, max);
+      count = 0;
+      total = 0;
+      max = Long.MIN_VALUE;
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+}
@@ -20,6 +20,25 @@ package io.avaje.metrics;
  *
  * </code>
  * </pre>
+ *
+ * <h3>Concurrency</h3>
+ * <p>
+ * Implementations are expected to stripe the statistics rather than use a single contended cell
+ * such that {@link #addEvent(long)} scales with the number of cores. Each stripe is a cache line
+ * padded cell that holds the cumulative count and total together and is updated and read as a
+ * unit (for example guarded by a sequence number). Recording updates a single stripe and
+ * collection reads each stripe as a unit without resetting it, reporting the difference to the
+ * values last read by the collecting {@link MetricCursor}. An event is then never lost or split
+ * across collection intervals. The max is held separately in a slot per cursor.
+ * </p>
+ * <p>
+ * Separate accumulators for count and total (like
+ * {@link java.util.concurrent.atomic.LongAdder}s using <code>sumThenReset()</code>) do not meet
+ * this as an event recorded concurrently with collection can have its count reported in one
+ * interval and its total in the next.
+ * </p>
+ *
+ * @see Metric#collect(io.avaje.metrics.statistics.MetricStatisticsVisitor)
  */
 public interface ValueMetric extends Metric {
 
@@ -29,22 +48,63 @@ public interface ValueMetric extends Metric {
   void addEvent(long value);
 
   /**
-   * Return the count of values collected (since the last reset/collection).
+   * Add the values in the given range of the array.
+   * <p>
+   * The values are aggregated locally and added to the metric as a single update.
+   * </p>
+   */
+  default void addEvents(long[] values, int offset, int length) {
+    if (length < 1) {
+      return;
+    }
+    long total = 0;
+    long max = Long.MIN_VALUE;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      long value = values[i];
+      total += value;
+      if (value > max) {
+        max = value;
+      }
+    }
+    addAggregate(length, total, max);
+  }
+
+  /**
+   * Add pre-aggregated events with their count, total and max.
+   * <p>
+   * This is used to flush events that have been aggregated locally (for example by a
+   * {@link LocalRecorder}) with a single update to the metric.
+   * </p>
+   */
+  void addAggregate(long count, long total, long max);
+
+  /**
+   * Return a thread confined recorder that flushes to this metric every flushEvery events and on close.
+   */
+  default LocalRecorder localRecorder(int flushEvery) {
+    return new ValueLocalRecorder(this, flushEvery);
+  }
+
+  /**
+   * Return the cumulative count of values recorded (not reset by collection).
    */
   long getCount();
 
   /**
-   * Return the total of all the values (since the last reset/collection).
+   * Return the cumulative total of the values recorded (not reset by collection).
    */
   long getTotal();
 
   /**
-   * Return the Max value collected (since the last reset/collection).
+   * Return the max value recorded since the default cursor last collected this metric.
+   * <p>
+   * Max can not be derived from cumulative state and is held per cursor (see {@link MetricCursor}).
+   * </p>
    */
   long getMax();
 
   /**
-   * Return the mean value rounded up for the values collected since the last reset/collection.
+   * Return the mean of the cumulative total and count rounded up.
    */
   long getMean();
 
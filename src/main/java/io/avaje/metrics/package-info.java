@@ -7,6 +7,7 @@
  * <li> Gauges - used to monitor resource values like memory (used, max etc) and threads (active, max etc).</li>
  * <li> Counters - count events like number of login events, number of errors logged.</li>
  * <li> Value - used to collect statistics on values that aggregate like total bytes sent etc.
+ * <li> Meters - measure the rate of events with 1, 5 and 15 minute moving averages.</li>
  * </ul>
  * <p>
  * Each of the metrics collect statistics. Generally a MetricReporter is used to periodically collect and report
@@ -0,0 +1,147 @@
+package io.avaje.metrics.statistics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Base for writers that encode directly into a reusable ByteBuffer flushing to a channel as it fills.
+ * <p>
+ * Numbers and strings are encoded in place such that writing does not produce garbage.
+ * </p>
+ */
+abstract class BufferedChannelWriter {
+
+  private final WritableByteChannel channel;
+
+  private final ByteBuffer buffer;
+
+  private final byte[] digits = new byte[20];
+
+  BufferedChannelWriter(WritableByteChannel channel, ByteBuffer buffer) {
+    if (buffer.capacity() < 64) {
+      throw new IllegalArgumentException("buffer capacity must be at least 64 but was " + buffer.capacity());
+    }
+    this.channel = channel;
+    this.buffer = buffer;
+    this.buffer.clear();
+  }
+
+  /**
+   * Write the buffered content to the channel.
+   */
+  void flushBuffer() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.clear();
+    }
+  }
+
+  void writeByte(int b) {
+    if (!buffer.hasRemaining()) {
+      flushBuffer();
+    }
+    buffer.put((byte) b);
+  }
+
+  void writeBytes(byte[] bytes) {
+    writeBytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Write the bytes in the given range copying them into the buffer in bulk.
+   */
+  void writeBytes(byte[] bytes, int offset, int length) {
+    int end = offset + length;
+    while (offset < end) {
+      if (!buffer.hasRemaining()) {
+        flushBuffer();
+      }
+      int chunk = Math.min(buffer.remaining(), end - offset);
+      buffer.put(bytes, offset, chunk);
+      offset += chunk;
+    }
+  }
+
+  void writeAscii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      writeByte(value.charAt(i));
+    }
+  }
+
+  /**
+   * Write the (non-ascii) character at the given index as UTF-8 returning the index of the last char consumed.
+   */
+  int writeUtf8(String value, int index) {
+    char ch = value.charAt(index);
+    if (ch < 0x80) {
+      writeByte(ch);
+    } else if (ch < 0x800) {
+      writeByte(0xC0 | (ch >> 6));
+      writeByte(0x80 | (ch & 0x3F));
+    } else if (Character.isHighSurrogate(ch) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+      int codePoint = Character.toCodePoint(ch, value.charAt(++index));
+      writeByte(0xF0 | (codePoint >> 18));
+      writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+      writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+      writeByte(0x80 | (codePoint & 0x3F));
+    } else {
+      writeByte(0xE0 | (ch >> 12));
+      writeByte(0x80 | ((ch >> 6) & 0x3F));
+      writeByte(0x80 | (ch & 0x3F));
+    }
+    return index;
+  }
+
+  void writeLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      writeAscii("-9223372036854775808");
+      return;
+    }
+    if (value < 0) {
+      writeByte('-');
+      value = -value;
+    }
+    int pos = digits.length;
+    do {
+      digits[--pos] = (byte) ('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+    while (pos < digits.length) {
+      writeByte(digits[pos++]);
+    }
+  }
+
+  /**
+   * Write the finite double value with up to 4 decimal places.
+   */
+  void writeFiniteDouble(double value) {
+    if (Math.abs(value) >= 1e14D) {
+      writeAscii(Double.toString(value));
+      return;
+    }
+    long scaled = Math.round(value * 10_000D);
+    if (scaled < 0) {
+      writeByte('-');
+      scaled = -scaled;
+    }
+    writeLong(scaled / 10_000);
+    int fraction = (int) (scaled % 10_000);
+    if (fraction != 0) {
+      writeByte('.');
+      int divisor = 1000;
+      while (fraction != 0) {
+        writeByte('0' + fraction / divisor);
+        fraction %= divisor;
+        divisor /= 10;
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package io.avaje.metrics.statistics;
+
+/**
+ * Statistics collected by a histogram TimedMetric that in addition to count, total, max and mean
+ * provide percentile values.
+ * <p>
+ * The percentiles are determined from a log-linear fixed memory histogram and so have bounded
+ * relative error. Percentile values are in the same units as {@link #getMax()}.
+ * </p>
+ *
+ * @see io.avaje.metrics.MetricManager#histogram(io.avaje.metrics.MetricName)
+ */
+public interface HistogramStatistics extends TimedStatistics {
+
+  /**
+   * Return the value at the given percentile (0 to 100).
+   */
+  long getValueAtPercentile(double percentile);
+
+  /**
+   * Return the median (50th percentile) value.
+   */
+  default long getP50() {
+    return getValueAtPercentile(50D);
+  }
+
+  /**
+   * Return the 95th percentile value.
+   */
+  default long getP95() {
+    return getValueAtPercentile(95D);
+  }
+
+  /**
+   * Return the 99th percentile value.
+   */
+  default long getP99() {
+    return getValueAtPercentile(99D);
+  }
+
+  /**
+   * Return the 99.9th percentile value.
+   */
+  default long getP999() {
+    return getValueAtPercentile(99.9D);
+  }
+
+  /**
+   * Return the mergeable sketch if the histogram keeps one (otherwise null).
+   * <p>
+   * Percentiles from many nodes can not be averaged but the sketches can be serialised
+   * and then merged via {@link QuantileSketch#merge(java.util.Collection)}.
+   * </p>
+   * <p>
+   * The sketch is bounded by its maximum number of buckets. When the values span a wider range
+   * than the buckets cover the lowest buckets are collapsed. The high percentiles keep their
+   * relative accuracy but the low percentiles (like p1 or p50 for a very wide range) then
+   * over estimate and can be out by orders of magnitude.
+   * </p>
+   *
+   * @see io.avaje.metrics.MetricManager#histogram(io.avaje.metrics.MetricName, double)
+   */
+  default QuantileSketch getSketch() {
+    return null;
+  }
+}
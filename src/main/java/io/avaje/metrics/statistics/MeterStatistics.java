@@ -0,0 +1,29 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.MeterMetric;
+
+/**
+ * Statistics provided by the {@link MeterMetric}.
+ */
+public interface MeterStatistics extends CounterStatistics {
+
+  /**
+   * Return the instantaneous rate in events per second.
+   */
+  double getRate();
+
+  /**
+   * Return the one minute exponentially weighted moving average rate in events per second.
+   */
+  double getOneMinuteRate();
+
+  /**
+   * Return the five minute exponentially weighted moving average rate in events per second.
+   */
+  double getFiveMinuteRate();
+
+  /**
+   * Return the fifteen minute exponentially weighted moving average rate in events per second.
+   */
+  double getFifteenMinuteRate();
+}
@@ -1,5 +1,9 @@
 package io.avaje.metrics.statistics;
 
+import io.avaje.metrics.Tags;
+
+import java.nio.charset.StandardCharsets;
+
 /**
  * Common for statistics of all metrics.
  */
@@ -10,6 +14,25 @@ public interface MetricStatistics {
    */
   String getName();
 
+  /**
+   * Return the metric name as UTF-8 bytes.
+   * <p>
+   * Implementations return the precomputed bytes of the metric name (see
+   * {@link io.avaje.metrics.MetricName#getNameBytes()}) such that writers can write the name
+   * without encoding it on each report. The returned array is shared and must not be modified.
+   * </p>
+   */
+  default byte[] getNameBytes() {
+    return getName().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Return the tags of the associated metric (empty if the metric has no tags).
+   */
+  default Tags getTags() {
+    return Tags.EMPTY;
+  }
+
   /**
    * Visit the reporter for the given metric type.
    */
@@ -1,5 +1,12 @@
 package io.avaje.metrics.statistics;
 
+/**
+ * Collected metrics that can be written as JSON.
+ * <p>
+ * For large numbers of metrics prefer {@link MetricStatisticsJsonWriter} which streams the
+ * metrics as they are collected into a reusable buffer.
+ * </p>
+ */
 public interface MetricStatisticsAsJson {
 
   /**
@@ -8,6 +15,9 @@ public interface MetricStatisticsAsJson {
    * Note that this doesn't add JSON array start and end so
    * those need to be added as needed.
    * </p>
+   * <p>
+   * Histogram statistics additionally include p50, p95, p99 and p999 values.
+   * </p>
    *
    * @param appendable The buffer to write the metrics to
    */
@@ -0,0 +1,483 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.COUNTER;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.END;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.FLAG_RESET;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.GAUGE_DOUBLE;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.GAUGE_LONG;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.HISTOGRAM;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.METER;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.NAME;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.TIMED;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.TIMED_BUCKET;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.VALUE;
+import static io.avaje.metrics.statistics.MetricStatisticsEncoder.VERSION;
+
+/**
+ * Decodes reports encoded by {@link MetricStatisticsEncoder}.
+ * <p>
+ * The decoder keeps the name dictionary sent by the encoder and so a decoder is used per source.
+ * This is not thread safe.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once per source and reuse
+ *   MetricStatisticsDecoder decoder = new MetricStatisticsDecoder();
+ *
+ *   // each report received
+ *   List<MetricStatistics> metrics = decoder.decode(buffer);
+ *
+ * }</pre>
+ */
+public class MetricStatisticsDecoder {
+
+  private final List<String> dictionary = new ArrayList<>();
+
+  private long lastStartTime;
+
+  /**
+   * Decode a report returning the metric statistics.
+   */
+  public List<MetricStatistics> decode(ByteBuffer buffer) {
+    List<MetricStatistics> metrics = new ArrayList<>();
+    readHeader(buffer);
+    MetricStatistics stats;
+    while ((stats = next(buffer)) != null) {
+      metrics.add(stats);
+    }
+    return metrics;
+  }
+
+  /**
+   * Decode a report visiting each of the metric statistics.
+   */
+  public void decode(ByteBuffer buffer, MetricStatisticsVisitor visitor) {
+    readHeader(buffer);
+    MetricStatistics stats;
+    while ((stats = next(buffer)) != null) {
+      stats.visit(visitor);
+    }
+  }
+
+  private void readHeader(ByteBuffer buffer) {
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalStateException("Unsupported metrics encoding version " + version);
+    }
+    if ((buffer.get() & FLAG_RESET) != 0) {
+      dictionary.clear();
+    }
+    lastStartTime = 0;
+  }
+
+  /**
+   * Return the next metric statistics or null at the end of the report.
+   */
+  private MetricStatistics next(ByteBuffer buffer) {
+    while (true) {
+      byte type = buffer.get();
+      if (type == END) {
+        return null;
+      }
+      if (type == NAME) {
+        readName(buffer);
+        continue;
+      }
+      String name = name(buffer);
+      Tags tags = tags(buffer);
+      long startTime = startTime(buffer);
+      switch (type) {
+        case COUNTER:
+          return new Counter(name, tags, startTime, readZigZag(buffer));
+        case METER:
+          return new Meter(name, tags, startTime, readZigZag(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        case GAUGE_LONG:
+          return new GaugeLong(name, tags, startTime, readZigZag(buffer));
+        case GAUGE_DOUBLE:
+          return new GaugeDouble(name, tags, startTime, buffer.getDouble());
+        case VALUE:
+          return new Value(name, tags, startTime, readZigZag(buffer), readZigZag(buffer), readZigZag(buffer));
+        case TIMED:
+          return new Timed(name, tags, startTime, "", readZigZag(buffer), readZigZag(buffer), readZigZag(buffer));
+        case TIMED_BUCKET: {
+          String bucketRange = dictionary(readVarLong(buffer));
+          return new Timed(name, tags, startTime, bucketRange, readZigZag(buffer), readZigZag(buffer), readZigZag(buffer));
+        }
+        case HISTOGRAM: {
+          long count = readZigZag(buffer);
+          long total = readZigZag(buffer);
+          long max = readZigZag(buffer);
+          long p50 = readZigZag(buffer);
+          long p95 = p50 + readZigZag(buffer);
+          long p99 = p95 + readZigZag(buffer);
+          long p999 = p99 + readZigZag(buffer);
+          return new Histogram(name, tags, startTime, count, total, max, p50, p95, p99, p999, readSketch(buffer));
+        }
+        default:
+          throw new IllegalStateException("Unknown metrics encoding type " + type);
+      }
+    }
+  }
+
+  private void readName(ByteBuffer buffer) {
+    int id = (int) readVarLong(buffer);
+    byte[] bytes = new byte[(int) readVarLong(buffer)];
+    buffer.get(bytes);
+    if (id != dictionary.size()) {
+      throw new IllegalStateException("Name id " + id + " out of sequence, expected " + dictionary.size());
+    }
+    dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  private static QuantileSketch readSketch(ByteBuffer buffer) {
+    int length = (int) readVarLong(buffer);
+    if (length == 0) {
+      return null;
+    }
+    byte[] content = new byte[length];
+    buffer.get(content);
+    return QuantileSketch.fromBytes(content);
+  }
+
+  private String name(ByteBuffer buffer) {
+    return dictionary(readVarLong(buffer));
+  }
+
+  /**
+   * Read the tags as pairs of dictionary ids for the key and value.
+   */
+  private Tags tags(ByteBuffer buffer) {
+    int size = (int) readVarLong(buffer);
+    if (size == 0) {
+      return Tags.EMPTY;
+    }
+    String[] keyValues = new String[size * 2];
+    for (int i = 0; i < keyValues.length; i++) {
+      keyValues[i] = dictionary(readVarLong(buffer));
+    }
+    return Tags.of(keyValues);
+  }
+
+  private String dictionary(long id) {
+    if (id >= dictionary.size()) {
+      throw new IllegalStateException("Unknown name id " + id + " (dictionary reset required)");
+    }
+    return dictionary.get((int) id);
+  }
+
+  private long startTime(ByteBuffer buffer) {
+    lastStartTime += readZigZag(buffer);
+    return lastStartTime;
+  }
+
+  private static long readZigZag(ByteBuffer buffer) {
+    long value = readVarLong(buffer);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Common name, tags and start time of the decoded statistics.
+   */
+  private abstract static class Decoded implements MetricStatistics {
+
+    private final String name;
+    private final Tags tags;
+    private final long startTime;
+
+    Decoded(String name, Tags tags, long startTime) {
+      this.name = name;
+      this.tags = tags;
+      this.startTime = startTime;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Tags getTags() {
+      return tags;
+    }
+
+    public long getStartTime() {
+      return startTime;
+    }
+  }
+
+  private static final class Counter extends Decoded implements CounterStatistics {
+
+    private final long count;
+
+    Counter(String name, Tags tags, long startTime, long count) {
+      super(name, tags, startTime);
+      this.count = count;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class Meter extends Decoded implements MeterStatistics {
+
+    private final long count;
+    private final double rate;
+    private final double oneMinuteRate;
+    private final double fiveMinuteRate;
+    private final double fifteenMinuteRate;
+
+    Meter(String name, Tags tags, long startTime, long count, double rate, double oneMinuteRate, double fiveMinuteRate, double fifteenMinuteRate) {
+      super(name, tags, startTime);
+      this.count = count;
+      this.rate = rate;
+      this.oneMinuteRate = oneMinuteRate;
+      this.fiveMinuteRate = fiveMinuteRate;
+      this.fifteenMinuteRate = fifteenMinuteRate;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public double getRate() {
+      return rate;
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+      return oneMinuteRate;
+    }
+
+    @Override
+    public double getFiveMinuteRate() {
+      return fiveMinuteRate;
+    }
+
+    @Override
+    public double getFifteenMinuteRate() {
+      return fifteenMinuteRate;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class GaugeLong extends Decoded implements GaugeLongStatistics {
+
+    private final long value;
+
+    GaugeLong(String name, Tags tags, long startTime, long value) {
+      super(name, tags, startTime);
+      this.value = value;
+    }
+
+    @Override
+    public long getValue() {
+      return value;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class GaugeDouble extends Decoded implements GaugeDoubleStatistics {
+
+    private final double value;
+
+    GaugeDouble(String name, Tags tags, long startTime, double value) {
+      super(name, tags, startTime);
+      this.value = value;
+    }
+
+    @Override
+    public double getValue() {
+      return value;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static class Value extends Decoded implements ValueStatistics {
+
+    private final long count;
+    private final long total;
+    private final long max;
+
+    Value(String name, Tags tags, long startTime, long count, long total, long max) {
+      super(name, tags, startTime);
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public long getTotal() {
+      return total;
+    }
+
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public long getMean() {
+      return (count < 1) ? 0L : Math.round((double) total / count);
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static class Timed extends Value implements TimedStatistics {
+
+    private final String bucketRange;
+
+    Timed(String name, Tags tags, long startTime, String bucketRange, long count, long total, long max) {
+      super(name, tags, startTime, count, total, max);
+      this.bucketRange = bucketRange;
+    }
+
+    @Override
+    public boolean isBucket() {
+      return !bucketRange.isEmpty();
+    }
+
+    @Override
+    public String getBucketRange() {
+      return bucketRange;
+    }
+
+    @Override
+    public String getNameWithBucket() {
+      return bucketRange.isEmpty() ? getName() : getName() + ";bucket=" + bucketRange;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class Histogram extends Timed implements HistogramStatistics {
+
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long p999;
+    private final QuantileSketch sketch;
+
+    Histogram(String name, Tags tags, long startTime, long count, long total, long max, long p50, long p95, long p99, long p999, QuantileSketch sketch) {
+      super(name, tags, startTime, "", count, total, max);
+      this.p50 = p50;
+      this.p95 = p95;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.sketch = sketch;
+    }
+
+    /**
+     * Return the value from the sketch when one was sent and otherwise an approximation from the
+     * encoded percentiles.
+     * <p>
+     * Without a sketch the 50, 95, 99 and 99.9 percentiles are exact. Percentiles between these
+     * are linearly interpolated between the neighbouring encoded values (and between p999 and the
+     * max above 99.9). Percentiles below 50 return p50 as there is no lower point to interpolate from.
+     * </p>
+     */
+    @Override
+    public long getValueAtPercentile(double percentile) {
+      if (sketch != null) {
+        return sketch.getValueAtPercentile(percentile);
+      }
+      if (percentile <= 50D) {
+        return p50;
+      } else if (percentile <= 95D) {
+        return interpolate(percentile, 50D, p50, 95D, p95);
+      } else if (percentile <= 99D) {
+        return interpolate(percentile, 95D, p95, 99D, p99);
+      } else if (percentile <= 99.9D) {
+        return interpolate(percentile, 99D, p99, 99.9D, p999);
+      } else if (percentile < 100D) {
+        return interpolate(percentile, 99.9D, p999, 100D, Math.max(p999, getMax()));
+      }
+      return Math.max(p999, getMax());
+    }
+
+    private static long interpolate(double percentile, double lower, long lowerValue, double upper, long upperValue) {
+      return lowerValue + Math.round((upperValue - lowerValue) * (percentile - lower) / (upper - lower));
+    }
+
+    @Override
+    public QuantileSketch getSketch() {
+      return sketch;
+    }
+
+    @Override
+    public long getP50() {
+      return p50;
+    }
+
+    @Override
+    public long getP95() {
+      return p95;
+    }
+
+    @Override
+    public long getP99() {
+      return p99;
+    }
+
+    @Override
+    public long getP999() {
+      return p999;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes metric statistics in a compact versioned binary form for shipping to a remote collector.
+ * <p>
+ * Values are varint encoded and start times are delta encoded. Metric names and tag keys and
+ * values are sent once as part of a name dictionary and subsequently referenced by id such that
+ * repeated reports only send ids and numbers. The receiving side uses a {@link MetricStatisticsDecoder} that keeps the matching
+ * dictionary and so an encoder is used per destination.
+ * </p>
+ * <p>
+ * Histogram statistics include p50, p95, p99 and p999 and when the histogram keeps a
+ * {@link QuantileSketch} the serialised sketch such that it can be merged on the receiving side.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once per destination and reuse
+ *   MetricStatisticsEncoder encoder = new MetricStatisticsEncoder(channel, ByteBuffer.allocateDirect(64 * 1024));
+ *
+ *   // each report
+ *   encoder.begin();
+ *   MetricManager.collect(encoder);
+ *   encoder.end();
+ *
+ * }</pre>
+ * <p>
+ * If the receiving side loses its dictionary (e.g. restarts) then {@link #resetDictionary()} is used
+ * such that the next report resends the names. This is not thread safe.
+ * </p>
+ */
+public class MetricStatisticsEncoder extends BufferedChannelWriter implements MetricStatisticsVisitor {
+
+  static final byte VERSION = 1;
+
+  static final int FLAG_RESET = 1;
+
+  static final byte END = 0;
+  static final byte NAME = 1;
+  static final byte COUNTER = 2;
+  static final byte GAUGE_LONG = 3;
+  static final byte GAUGE_DOUBLE = 4;
+  static final byte VALUE = 5;
+  static final byte TIMED = 6;
+  static final byte TIMED_BUCKET = 7;
+  static final byte HISTOGRAM = 8;
+  static final byte METER = 9;
+
+  private final Map<String, Integer> dictionary = new HashMap<>();
+
+  private boolean resetDictionary = true;
+
+  private long lastStartTime;
+
+  private int[] tagIds = new int[8];
+
+  /**
+   * Create with the channel to write to and buffer to use (at least 64 bytes).
+   */
+  public MetricStatisticsEncoder(WritableByteChannel channel, ByteBuffer buffer) {
+    super(channel, buffer);
+  }
+
+  /**
+   * Clear the name dictionary such that the next report resends all the names.
+   */
+  public void resetDictionary() {
+    dictionary.clear();
+    resetDictionary = true;
+  }
+
+  /**
+   * Begin a report writing the header.
+   */
+  public void begin() {
+    writeByte(VERSION);
+    writeByte(resetDictionary ? FLAG_RESET : 0);
+    resetDictionary = false;
+    lastStartTime = 0;
+  }
+
+  /**
+   * End the report and flush the buffered content to the channel.
+   */
+  public void end() {
+    writeByte(END);
+    flushBuffer();
+  }
+
+  @Override
+  public void visit(TimedStatistics timed) {
+    if (timed.isBucket()) {
+      int bucketId = nameId(timed.getBucketRange(), null);
+      start(TIMED_BUCKET, timed, timed.getStartTime());
+      writeVarLong(bucketId);
+    } else {
+      start(TIMED, timed, timed.getStartTime());
+    }
+    writeValues(timed);
+  }
+
+  @Override
+  public void visit(HistogramStatistics histogram) {
+    start(HISTOGRAM, histogram, histogram.getStartTime());
+    writeValues(histogram);
+    // percentiles ascend so delta encode them
+    long p50 = histogram.getP50();
+    long p95 = histogram.getP95();
+    long p99 = histogram.getP99();
+    writeZigZag(p50);
+    writeZigZag(p95 - p50);
+    writeZigZag(p99 - p95);
+    writeZigZag(histogram.getP999() - p99);
+    QuantileSketch sketch = histogram.getSketch();
+    if (sketch == null) {
+      writeVarLong(0);
+    } else {
+      byte[] content = sketch.toBytes();
+      writeVarLong(content.length);
+      writeBytes(content);
+    }
+  }
+
+  @Override
+  public void visit(ValueStatistics value) {
+    start(VALUE, value, value.getStartTime());
+    writeValues(value);
+  }
+
+  @Override
+  public void visit(CounterStatistics counter) {
+    start(COUNTER, counter, counter.getStartTime());
+    writeZigZag(counter.getCount());
+  }
+
+  @Override
+  public void visit(MeterStatistics meter) {
+    start(METER, meter, meter.getStartTime());
+    writeZigZag(meter.getCount());
+    writeDouble(meter.getRate());
+    writeDouble(meter.getOneMinuteRate());
+    writeDouble(meter.getFiveMinuteRate());
+    writeDouble(meter.getFifteenMinuteRate());
+  }
+
+  @Override
+  public void visit(GaugeDoubleStatistics gauge) {
+    start(GAUGE_DOUBLE, gauge, gauge.getStartTime());
+    writeDouble(gauge.getValue());
+  }
+
+  @Override
+  public void visit(GaugeLongStatistics gauge) {
+    start(GAUGE_LONG, gauge, gauge.getStartTime());
+    writeZigZag(gauge.getValue());
+  }
+
+  private void writeValues(ValueStatistics value) {
+    writeZigZag(value.getCount());
+    writeZigZag(value.getTotal());
+    writeZigZag(value.getMax());
+  }
+
+  private void start(byte type, MetricStatistics stats, long startTime) {
+    int id = nameId(stats.getName(), stats);
+    Tags tags = stats.getTags();
+    int tagCount = tags.size();
+    if (tagIds.length < tagCount * 2) {
+      tagIds = new int[tagCount * 2];
+    }
+    for (int i = 0; i < tagCount; i++) {
+      tagIds[i * 2] = nameId(tags.getKey(i), null);
+      tagIds[i * 2 + 1] = nameId(tags.getValue(i), null);
+    }
+    writeByte(type);
+    writeVarLong(id);
+    writeVarLong(tagCount);
+    for (int i = 0; i < tagCount * 2; i++) {
+      writeVarLong(tagIds[i]);
+    }
+    writeZigZag(startTime - lastStartTime);
+    lastStartTime = startTime;
+  }
+
+  /**
+   * Return the id for the name writing it to the dictionary if it is new.
+   * <p>
+   * When the name is for metric statistics its precomputed name bytes are written.
+   * </p>
+   */
+  private int nameId(String name, MetricStatistics stats) {
+    Integer id = dictionary.get(name);
+    if (id != null) {
+      return id;
+    }
+    int newId = dictionary.size();
+    dictionary.put(name, newId);
+    writeByte(NAME);
+    writeVarLong(newId);
+    if (stats != null) {
+      byte[] bytes = stats.getNameBytes();
+      writeVarLong(bytes.length);
+      writeBytes(bytes);
+    } else {
+      writeVarLong(utf8Length(name));
+      for (int i = 0; i < name.length(); i++) {
+        i = writeUtf8(name, i);
+      }
+    }
+    return newId;
+  }
+
+  private static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch < 0x80) {
+        length++;
+      } else if (ch < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(ch) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  private void writeDouble(double value) {
+    long bits = Double.doubleToLongBits(value);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      writeByte((int) (bits >>> shift));
+    }
+  }
+
+  private void writeZigZag(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  private void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    writeByte((int) value);
+  }
+}
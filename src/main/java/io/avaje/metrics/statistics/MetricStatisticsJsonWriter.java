@@ -0,0 +1,257 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streaming JSON writer that visits the metric statistics writing them directly to a reusable
+ * ByteBuffer which is flushed to a WritableByteChannel as it fills.
+ * <p>
+ * Used with {@link io.avaje.metrics.MetricManager#collect(MetricStatisticsVisitor)} the metrics
+ * are written as they are collected without building an intermediate list and without producing
+ * garbage per metric. The writer and buffer are expected to be reused for each report.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once and reuse
+ *   MetricStatisticsJsonWriter writer = new MetricStatisticsJsonWriter(channel, ByteBuffer.allocateDirect(64 * 1024));
+ *
+ *   // each report
+ *   writer.reset();
+ *   MetricManager.collect(writer);
+ *   writer.flush();
+ *
+ * }</pre>
+ * <p>
+ * Tagged metrics include a <code>tags</code> object. Like {@link MetricStatisticsAsJson} this
+ * doesn't add JSON array start and end. This is not thread safe.
+ * </p>
+ */
+public class MetricStatisticsJsonWriter extends BufferedChannelWriter implements MetricStatisticsVisitor {
+
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+  private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+  private boolean first = true;
+
+  /**
+   * Create with the channel to write to and buffer to use (at least 64 bytes).
+   */
+  public MetricStatisticsJsonWriter(WritableByteChannel channel, ByteBuffer buffer) {
+    super(channel, buffer);
+  }
+
+  /**
+   * Reset such that the next metric written is the first (no leading comma).
+   */
+  public void reset() {
+    first = true;
+  }
+
+  /**
+   * Flush the buffered content to the channel.
+   */
+  public void flush() {
+    flushBuffer();
+  }
+
+  @Override
+  public void visit(TimedStatistics timed) {
+    start("timed", timed);
+    writeValues(timed);
+    writeBucket(timed);
+    end();
+  }
+
+  @Override
+  public void visit(HistogramStatistics histogram) {
+    start("timed", histogram);
+    writeValues(histogram);
+    writeBucket(histogram);
+    key("p50");
+    writeLong(histogram.getP50());
+    key("p95");
+    writeLong(histogram.getP95());
+    key("p99");
+    writeLong(histogram.getP99());
+    key("p999");
+    writeLong(histogram.getP999());
+    end();
+  }
+
+  @Override
+  public void visit(ValueStatistics value) {
+    start("value", value);
+    writeValues(value);
+    end();
+  }
+
+  @Override
+  public void visit(CounterStatistics counter) {
+    start("counter", counter);
+    key("count");
+    writeLong(counter.getCount());
+    end();
+  }
+
+  @Override
+  public void visit(MeterStatistics meter) {
+    start("meter", meter);
+    key("count");
+    writeLong(meter.getCount());
+    key("rate");
+    writeDouble(meter.getRate());
+    key("m1");
+    writeDouble(meter.getOneMinuteRate());
+    key("m5");
+    writeDouble(meter.getFiveMinuteRate());
+    key("m15");
+    writeDouble(meter.getFifteenMinuteRate());
+    end();
+  }
+
+  @Override
+  public void visit(GaugeDoubleStatistics gauge) {
+    start("gauge", gauge);
+    key("value");
+    writeDouble(gauge.getValue());
+    end();
+  }
+
+  @Override
+  public void visit(GaugeLongStatistics gauge) {
+    start("gaugeLong", gauge);
+    key("value");
+    writeLong(gauge.getValue());
+    end();
+  }
+
+  private void writeValues(ValueStatistics value) {
+    key("count");
+    writeLong(value.getCount());
+    key("mean");
+    writeLong(value.getMean());
+    key("max");
+    writeLong(value.getMax());
+    key("total");
+    writeLong(value.getTotal());
+  }
+
+  private void writeBucket(TimedStatistics timed) {
+    if (timed.isBucket()) {
+      key("bucket");
+      writeString(timed.getBucketRange());
+    }
+  }
+
+  private void start(String type, MetricStatistics stats) {
+    if (first) {
+      first = false;
+    } else {
+      writeByte(',');
+    }
+    writeByte('{');
+    writeByte('"');
+    writeAscii("type");
+    writeByte('"');
+    writeByte(':');
+    writeString(type);
+    key("name");
+    writeStringBytes(stats.getNameBytes());
+    writeTags(stats.getTags());
+  }
+
+  private void writeTags(Tags tags) {
+    if (!tags.isEmpty()) {
+      key("tags");
+      writeByte('{');
+      for (int i = 0; i < tags.size(); i++) {
+        if (i > 0) {
+          writeByte(',');
+        }
+        writeString(tags.getKey(i));
+        writeByte(':');
+        writeString(tags.getValue(i));
+      }
+      writeByte('}');
+    }
+  }
+
+  private void end() {
+    writeByte('}');
+  }
+
+  private void key(String key) {
+    writeByte(',');
+    writeByte('"');
+    writeAscii(key);
+    writeByte('"');
+    writeByte(':');
+  }
+
+  /**
+   * Write the JSON string escaping as needed and encoding as UTF-8.
+   */
+  private void writeString(String value) {
+    if (value == null) {
+      writeBytes(NULL);
+      return;
+    }
+    writeByte('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        writeByte('\\');
+        writeByte(ch);
+      } else if (ch < 0x20) {
+        writeByte('\\');
+        writeByte('u');
+        writeByte('0');
+        writeByte('0');
+        writeByte(HEX[ch >> 4]);
+        writeByte(HEX[ch & 0xF]);
+      } else {
+        i = writeUtf8(value, i);
+      }
+    }
+    writeByte('"');
+  }
+
+  /**
+   * Write the UTF-8 encoded string escaping as needed (multi-byte characters are written as is).
+   */
+  private void writeStringBytes(byte[] value) {
+    writeByte('"');
+    int start = 0;
+    for (int i = 0; i < value.length; i++) {
+      int b = value[i] & 0xFF;
+      if (b == '"' || b == '\\' || b < 0x20) {
+        writeBytes(value, start, i - start);
+        writeByte('\\');
+        if (b < 0x20) {
+          writeByte('u');
+          writeByte('0');
+          writeByte('0');
+          writeByte(HEX[b >> 4]);
+          writeByte(HEX[b & 0xF]);
+        } else {
+          writeByte(b);
+        }
+        start = i + 1;
+      }
+    }
+    writeBytes(value, start, value.length - start);
+    writeByte('"');
+  }
+
+  private void writeDouble(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      writeBytes(NULL);
+    } else {
+      writeFiniteDouble(value);
+    }
+  }
+}
@@ -0,0 +1,455 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the metric statistics in Prometheus text exposition format (or OpenMetrics) directly to
+ * a reusable ByteBuffer which is flushed to a WritableByteChannel as it fills.
+ * <p>
+ * Metric names are converted to valid Prometheus names by replacing invalid characters (like
+ * periods) with underscores. The exposition is:
+ * </p>
+ * <ul>
+ * <li>CounterStatistics as a counter</li>
+ * <li>MeterStatistics as a counter with additional rate gauges (rate, m1_rate, m5_rate and m15_rate)</li>
+ * <li>GaugeDoubleStatistics and GaugeLongStatistics as a gauge</li>
+ * <li>TimedStatistics and ValueStatistics as a summary (count and sum) with an additional max gauge</li>
+ * <li>HistogramStatistics as a summary with 0.5, 0.95, 0.99 and 0.999 quantiles</li>
+ * <li>Bucket TimedStatistics as a histogram with cumulative buckets using the upper bound of each
+ * bucket range as the <code>le</code> label (a range without a numeric upper bound is only
+ * included in <code>+Inf</code>)</li>
+ * </ul>
+ * <p>
+ * Timed values (sum, max and quantiles) are written in microseconds as collected. Bucket ranges
+ * are defined in milliseconds and their upper bounds are converted to microseconds for the
+ * <code>le</code> label such that the buckets and <code>_sum</code> use the same unit.
+ * </p>
+ * <p>
+ * The tags of a metric are written as labels. The buckets of a bucket timed metric and the tagged
+ * metrics of the same name are expected to be visited consecutively (which is the case when they
+ * are collected). Each metric family is written once with all its samples grouped under its TYPE
+ * line. For the run of tagged metrics of the same name the additional max and rate gauge families
+ * are written after the main family.
+ * </p>
+ * <pre>{@code
+ *
+ *   // create once and reuse
+ *   MetricStatisticsPrometheusWriter writer = new MetricStatisticsPrometheusWriter(channel, ByteBuffer.allocateDirect(64 * 1024));
+ *
+ *   // each scrape
+ *   writer.reset();
+ *   MetricManager.collect(writer);
+ *   writer.flush();
+ *
+ * }</pre>
+ * <p>
+ * This is not thread safe.
+ * </p>
+ */
+public class MetricStatisticsPrometheusWriter extends BufferedChannelWriter implements MetricStatisticsVisitor {
+
+  /**
+   * The metric families written with the Prometheus type of their main samples.
+   */
+  private enum Family {
+    COUNTER("counter"),
+    METER("counter"),
+    GAUGE("gauge"),
+    SUMMARY("summary"),
+    HISTOGRAM("histogram");
+
+    private final String type;
+
+    Family(String type) {
+      this.type = type;
+    }
+  }
+
+  private static final String[] METER_RATES = {"_rate", "_m1_rate", "_m5_rate", "_m15_rate"};
+
+  private final boolean openMetrics;
+
+  /**
+   * The tags of the metric currently being written.
+   */
+  private Tags tags = Tags.EMPTY;
+
+  /**
+   * The name and family of the run of metrics (tagged series) currently being written.
+   */
+  private byte[] runName;
+  private Family runFamily;
+
+  /**
+   * The metrics of the current run whose additional families (max or rate gauges) are written
+   * when the run ends such that the samples of each family are grouped under its TYPE line.
+   */
+  private final List<MetricStatistics> run = new ArrayList<>();
+
+  /**
+   * The name of the bucket timed metric whose buckets are currently being written.
+   */
+  private byte[] bucketName;
+  private Tags bucketTags;
+  private long bucketCumulative;
+  private long bucketSum;
+
+  /**
+   * Create for Prometheus text format with the channel to write to and buffer to use (at least 64 bytes).
+   */
+  public MetricStatisticsPrometheusWriter(WritableByteChannel channel, ByteBuffer buffer) {
+    this(channel, buffer, false);
+  }
+
+  /**
+   * Create with the channel to write to and buffer to use (at least 64 bytes).
+   *
+   * @param openMetrics When true write OpenMetrics format rather than Prometheus text format
+   */
+  public MetricStatisticsPrometheusWriter(WritableByteChannel channel, ByteBuffer buffer, boolean openMetrics) {
+    super(channel, buffer);
+    this.openMetrics = openMetrics;
+  }
+
+  /**
+   * Reset ready for the next scrape.
+   */
+  public void reset() {
+    bucketName = null;
+    runName = null;
+    runFamily = null;
+    run.clear();
+  }
+
+  /**
+   * Complete the exposition and flush the buffered content to the channel.
+   */
+  public void flush() {
+    endBuckets();
+    endRun();
+    if (openMetrics) {
+      writeAscii("# EOF\n");
+    }
+    flushBuffer();
+  }
+
+  @Override
+  public void visit(TimedStatistics timed) {
+    if (timed.isBucket()) {
+      writeBucket(timed);
+    } else {
+      writeSummary(timed);
+    }
+  }
+
+  @Override
+  public void visit(HistogramStatistics histogram) {
+    begin(histogram, Family.SUMMARY);
+    byte[] name = histogram.getNameBytes();
+    writeQuantile(name, "0.5", histogram.getP50());
+    writeQuantile(name, "0.95", histogram.getP95());
+    writeQuantile(name, "0.99", histogram.getP99());
+    writeQuantile(name, "0.999", histogram.getP999());
+    writeSample(name, "_count", histogram.getCount());
+    writeSample(name, "_sum", histogram.getTotal());
+    run.add(histogram);
+  }
+
+  @Override
+  public void visit(ValueStatistics value) {
+    writeSummary(value);
+  }
+
+  @Override
+  public void visit(CounterStatistics counter) {
+    begin(counter, Family.COUNTER);
+    writeCounter(counter);
+  }
+
+  @Override
+  public void visit(MeterStatistics meter) {
+    begin(meter, Family.METER);
+    writeCounter(meter);
+    run.add(meter);
+  }
+
+  @Override
+  public void visit(GaugeDoubleStatistics gauge) {
+    begin(gauge, Family.GAUGE);
+    writeGaugeSample(gauge.getNameBytes(), null, gauge.getValue());
+  }
+
+  @Override
+  public void visit(GaugeLongStatistics gauge) {
+    begin(gauge, Family.GAUGE);
+    writeSample(gauge.getNameBytes(), null, gauge.getValue());
+  }
+
+  /**
+   * Begin writing the metric writing the TYPE line when it starts a new run (metric family).
+   */
+  private void begin(MetricStatistics stats, Family family) {
+    endBuckets();
+    byte[] name = stats.getNameBytes();
+    if (family != runFamily || !Arrays.equals(name, runName)) {
+      endRun();
+      runName = name;
+      runFamily = family;
+      writeType(name, null, family.type);
+    }
+    tags = stats.getTags();
+  }
+
+  /**
+   * End the current run writing the additional families (max or rate gauges) of its metrics.
+   */
+  private void endRun() {
+    if (!run.isEmpty()) {
+      if (runFamily == Family.METER) {
+        for (int i = 0; i < METER_RATES.length; i++) {
+          writeType(runName, METER_RATES[i], "gauge");
+          for (MetricStatistics stats : run) {
+            tags = stats.getTags();
+            writeGaugeSample(runName, METER_RATES[i], meterRate((MeterStatistics) stats, i));
+          }
+        }
+      } else {
+        writeType(runName, "_max", "gauge");
+        for (MetricStatistics stats : run) {
+          tags = stats.getTags();
+          writeSample(runName, "_max", ((ValueStatistics) stats).getMax());
+        }
+      }
+      run.clear();
+    }
+    runName = null;
+    runFamily = null;
+  }
+
+  private static double meterRate(MeterStatistics meter, int index) {
+    switch (index) {
+      case 0:
+        return meter.getRate();
+      case 1:
+        return meter.getOneMinuteRate();
+      case 2:
+        return meter.getFiveMinuteRate();
+      default:
+        return meter.getFifteenMinuteRate();
+    }
+  }
+
+  private void writeCounter(CounterStatistics counter) {
+    writeSample(counter.getNameBytes(), openMetrics ? "_total" : null, counter.getCount());
+  }
+
+  private void writeSummary(ValueStatistics value) {
+    begin(value, Family.SUMMARY);
+    byte[] name = value.getNameBytes();
+    writeSample(name, "_count", value.getCount());
+    writeSample(name, "_sum", value.getTotal());
+    run.add(value);
+  }
+
+  private void writeBucket(TimedStatistics timed) {
+    byte[] name = timed.getNameBytes();
+    Tags timedTags = timed.getTags();
+    if (!Arrays.equals(name, bucketName) || !timedTags.equals(bucketTags)) {
+      begin(timed, Family.HISTOGRAM);
+      bucketName = name;
+      bucketTags = timedTags;
+      bucketCumulative = 0;
+      bucketSum = 0;
+    }
+    bucketCumulative += timed.getCount();
+    bucketSum += timed.getTotal();
+    // the last (open ended) bucket and malformed ranges are included in +Inf by endBuckets()
+    long upperMillis = upperBound(timed.getBucketRange());
+    if (upperMillis > -1) {
+      writeName(name, "_bucket");
+      writeByte('{');
+      if (writeTagLabels()) {
+        writeByte(',');
+      }
+      writeAscii("le=\"");
+      // convert to microseconds to match the unit of _sum
+      writeLong(upperMillis * 1000);
+      writeAscii("\"} ");
+      writeLong(bucketCumulative);
+      writeByte('\n');
+    }
+  }
+
+  /**
+   * Return the upper bound in milliseconds of a bucket range like <code>100-200</code> or -1
+   * for the open ended last bucket (like <code>200+</code>) or a range that is not digits.
+   */
+  private static long upperBound(String range) {
+    int dash = range == null ? -1 : range.indexOf('-');
+    int length = dash < 0 ? 0 : range.length() - dash - 1;
+    if (length == 0 || length > 15) {
+      return -1;
+    }
+    long upperMillis = 0;
+    for (int i = dash + 1; i < range.length(); i++) {
+      char ch = range.charAt(i);
+      if (ch < '0' || ch > '9') {
+        return -1;
+      }
+      upperMillis = upperMillis * 10 + (ch - '0');
+    }
+    return upperMillis;
+  }
+
+  private void endBuckets() {
+    if (bucketName != null) {
+      writeName(bucketName, "_bucket");
+      writeLabels("le", "+Inf");
+      writeByte(' ');
+      writeLong(bucketCumulative);
+      writeByte('\n');
+      writeSample(bucketName, "_count", bucketCumulative);
+      writeSample(bucketName, "_sum", bucketSum);
+      bucketName = null;
+    }
+  }
+
+  private void writeQuantile(byte[] name, String quantile, long value) {
+    writeName(name, null);
+    writeLabels("quantile", quantile);
+    writeByte(' ');
+    writeLong(value);
+    writeByte('\n');
+  }
+
+  private void writeType(byte[] name, String suffix, String type) {
+    writeAscii("# TYPE ");
+    writeName(name, suffix);
+    writeByte(' ');
+    writeAscii(type);
+    writeByte('\n');
+  }
+
+  private void writeSample(byte[] name, String suffix, long value) {
+    writeName(name, suffix);
+    writeLabels(null, null);
+    writeByte(' ');
+    writeLong(value);
+    writeByte('\n');
+  }
+
+  private void writeGaugeSample(byte[] name, String suffix, double value) {
+    writeName(name, suffix);
+    writeLabels(null, null);
+    writeByte(' ');
+    writeDouble(value);
+    writeByte('\n');
+  }
+
+  /**
+   * Write the tags of the current metric and the extra label (if any) as labels.
+   */
+  private void writeLabels(String extraKey, String extraValue) {
+    if (tags.isEmpty() && extraKey == null) {
+      return;
+    }
+    writeByte('{');
+    if (extraKey != null) {
+      if (writeTagLabels()) {
+        writeByte(',');
+      }
+      writeLabel(extraKey, extraValue);
+    } else {
+      writeTagLabels();
+    }
+    writeByte('}');
+  }
+
+  /**
+   * Write the tags of the current metric as labels returning true if any were written.
+   */
+  private boolean writeTagLabels() {
+    for (int i = 0; i < tags.size(); i++) {
+      if (i > 0) {
+        writeByte(',');
+      }
+      writeLabel(tags.getKey(i), tags.getValue(i));
+    }
+    return !tags.isEmpty();
+  }
+
+  private void writeLabel(String key, String value) {
+    writeLabelName(key);
+    writeByte('=');
+    writeByte('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        writeByte('\\');
+        writeByte(ch);
+      } else if (ch == '\n') {
+        writeByte('\\');
+        writeByte('n');
+      } else {
+        i = writeUtf8(value, i);
+      }
+    }
+    writeByte('"');
+  }
+
+  /**
+   * Write the UTF-8 name bytes replacing characters that are not valid in Prometheus names with underscore.
+   */
+  private void writeName(byte[] name, String suffix) {
+    for (int i = 0; i < name.length; i++) {
+      int b = name[i] & 0xFF;
+      if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b == ':') {
+        writeByte(b);
+      } else if (b >= '0' && b <= '9') {
+        if (i == 0) {
+          writeByte('_');
+        }
+        writeByte(b);
+      } else if ((b & 0xC0) != 0x80) {
+        // a single underscore for a multi-byte character (skipping continuation bytes)
+        writeByte('_');
+      }
+    }
+    if (suffix != null) {
+      writeAscii(suffix);
+    }
+  }
+
+  /**
+   * Write the label name replacing characters that are not valid in Prometheus label names with underscore.
+   */
+  private void writeLabelName(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      char ch = name.charAt(i);
+      if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_' || (ch >= '0' && ch <= '9' && i > 0)) {
+        writeByte(ch);
+      } else {
+        writeByte('_');
+      }
+    }
+  }
+
+  private void writeDouble(double value) {
+    if (Double.isNaN(value)) {
+      writeAscii("NaN");
+    } else if (Double.isInfinite(value)) {
+      writeAscii(value > 0 ? "+Inf" : "-Inf");
+    } else if (Math.abs(value) < 1e14D && Math.round(value * 10_000D) / 10_000D == value) {
+      writeFiniteDouble(value);
+    } else {
+      // full precision for values (like small gauges) that 4 decimal places would round
+      writeAscii(Double.toString(value));
+    }
+  }
+}
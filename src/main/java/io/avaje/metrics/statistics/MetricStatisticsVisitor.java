@@ -10,6 +10,16 @@ public interface MetricStatisticsVisitor {
    */
   void visit(TimedStatistics timed);
 
+  /**
+   * Visit HistogramStatistics.
+   * <p>
+   * By default this visits the histogram as TimedStatistics (without percentiles).
+   * </p>
+   */
+  default void visit(HistogramStatistics histogram) {
+    visit((TimedStatistics) histogram);
+  }
+
   /**
    * Visit ValueStatistics.
    */
@@ -20,6 +30,16 @@ public interface MetricStatisticsVisitor {
    */
   void visit(CounterStatistics counter);
 
+  /**
+   * Visit MeterStatistics.
+   * <p>
+   * By default this visits the meter as CounterStatistics (without rates).
+   * </p>
+   */
+  default void visit(MeterStatistics meter) {
+    visit((CounterStatistics) meter);
+  }
+
   /**
    * Visit GaugeDoubleStatistics
    */
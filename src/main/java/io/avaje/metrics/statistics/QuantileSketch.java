@@ -0,0 +1,327 @@
+package io.avaje.metrics.statistics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * A compact mergeable quantile sketch with bounded relative error (similar to DDSketch).
+ * <p>
+ * Values are mapped to logarithmically sized buckets such that a percentile value returned has a
+ * relative error of at most the relative accuracy. The number of buckets is bounded by
+ * maxBuckets (a few KB) regardless of the number of values added and when that is exceeded the
+ * lowest buckets are collapsed (so accuracy is kept for the high percentiles).
+ * </p>
+ * <p>
+ * Unlike percentiles, sketches from many nodes can be merged to give fleet wide percentiles.
+ * Sketches are serialised via {@link #toBytes()} and merged offline via {@link #merge(Collection)}.
+ * </p>
+ * <pre>{@code
+ *
+ *   List<QuantileSketch> sketches = ...
+ *   for (byte[] content : receivedSketches) {
+ *     sketches.add(QuantileSketch.fromBytes(content));
+ *   }
+ *
+ *   QuantileSketch merged = QuantileSketch.merge(sketches);
+ *   long p99 = merged.getValueAtPercentile(99);
+ *
+ * }</pre>
+ * <p>
+ * This is not thread safe.
+ * </p>
+ */
+public final class QuantileSketch {
+
+  /**
+   * The default relative accuracy of 2%.
+   */
+  public static final double DEFAULT_RELATIVE_ACCURACY = 0.02D;
+
+  /**
+   * The default maximum number of buckets (4KB of counts).
+   */
+  public static final int DEFAULT_MAX_BUCKETS = 512;
+
+  private static final byte VERSION = 1;
+
+  private final double relativeAccuracy;
+  private final int maxBuckets;
+  private final double gamma;
+  private final double logGamma;
+
+  private long[] counts;
+  private int offset;
+  private int minIndex = Integer.MAX_VALUE;
+  private int maxIndex = Integer.MIN_VALUE;
+  private long zeroCount;
+  private long count;
+  private long max;
+
+  /**
+   * Create with the default relative accuracy and max buckets.
+   */
+  public QuantileSketch() {
+    this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+  }
+
+  /**
+   * Create with the given relative accuracy (e.g. 0.01 for 1%) and maximum number of buckets.
+   */
+  public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+    if (relativeAccuracy <= 0D || relativeAccuracy >= 1D) {
+      throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1 but was " + relativeAccuracy);
+    }
+    if (maxBuckets < 1) {
+      throw new IllegalArgumentException("maxBuckets must be greater than 0 but was " + maxBuckets);
+    }
+    this.relativeAccuracy = relativeAccuracy;
+    this.maxBuckets = maxBuckets;
+    this.gamma = (1D + relativeAccuracy) / (1D - relativeAccuracy);
+    this.logGamma = Math.log(gamma);
+  }
+
+  /**
+   * Merge all the sketches returning a new sketch.
+   * <p>
+   * All the sketches must have the same relative accuracy.
+   * </p>
+   */
+  public static QuantileSketch merge(Collection<QuantileSketch> sketches) {
+    QuantileSketch merged = null;
+    for (QuantileSketch sketch : sketches) {
+      if (merged == null) {
+        merged = new QuantileSketch(sketch.relativeAccuracy, sketch.maxBuckets);
+      }
+      merged.merge(sketch);
+    }
+    return merged == null ? new QuantileSketch() : merged;
+  }
+
+  /**
+   * Create a sketch from the content produced by {@link #toBytes()}.
+   */
+  public static QuantileSketch fromBytes(byte[] content) {
+    ByteBuffer buffer = ByteBuffer.wrap(content);
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported QuantileSketch version " + version);
+    }
+    double accuracy = buffer.getDouble();
+    QuantileSketch sketch = new QuantileSketch(accuracy, (int) readVarLong(buffer));
+    sketch.count = readVarLong(buffer);
+    sketch.zeroCount = readVarLong(buffer);
+    sketch.max = readVarLong(buffer);
+    if (sketch.count > sketch.zeroCount) {
+      long zigzag = readVarLong(buffer);
+      int first = (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+      int size = (int) readVarLong(buffer);
+      if (size > sketch.maxBuckets) {
+        throw new IllegalArgumentException("Bucket count " + size + " exceeds maxBuckets " + sketch.maxBuckets);
+      }
+      sketch.counts = new long[sketch.maxBuckets];
+      sketch.offset = first;
+      for (int i = 0; i < size; i++) {
+        sketch.counts[i] = readVarLong(buffer);
+      }
+      sketch.minIndex = first;
+      sketch.maxIndex = first + size - 1;
+    }
+    return sketch;
+  }
+
+  /**
+   * Return the relative accuracy of this sketch.
+   */
+  public double getRelativeAccuracy() {
+    return relativeAccuracy;
+  }
+
+  /**
+   * Return the maximum number of buckets for this sketch.
+   */
+  public int getMaxBuckets() {
+    return maxBuckets;
+  }
+
+  /**
+   * Return the number of values added.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Return the maximum value added.
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * Add a value.
+   */
+  public void add(long value) {
+    add(value, 1);
+  }
+
+  /**
+   * Add a value the given number of times.
+   */
+  public void add(long value, long times) {
+    if (times < 1) {
+      return;
+    }
+    count += times;
+    if (value <= 0) {
+      zeroCount += times;
+    } else {
+      if (value > max) {
+        max = value;
+      }
+      addToIndex((int) Math.ceil(Math.log(value) / logGamma), times);
+    }
+  }
+
+  /**
+   * Merge the other sketch into this sketch.
+   * <p>
+   * The other sketch must have the same relative accuracy.
+   * </p>
+   */
+  public void merge(QuantileSketch other) {
+    if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+      throw new IllegalArgumentException("Can not merge sketch with relativeAccuracy " + other.relativeAccuracy + " into " + relativeAccuracy);
+    }
+    count += other.count;
+    zeroCount += other.zeroCount;
+    if (other.max > max) {
+      max = other.max;
+    }
+    for (int i = other.minIndex; i <= other.maxIndex; i++) {
+      long bucketCount = other.counts[i - other.offset];
+      if (bucketCount > 0) {
+        addToIndex(i, bucketCount);
+      }
+    }
+  }
+
+  /**
+   * Return the value at the given percentile (0 to 100).
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) (Math.max(0D, Math.min(100D, percentile)) / 100D * (count - 1));
+    long cumulative = zeroCount;
+    if (rank < cumulative) {
+      return 0;
+    }
+    for (int i = minIndex; i <= maxIndex; i++) {
+      cumulative += counts[i - offset];
+      if (rank < cumulative) {
+        return Math.min(max, Math.round(2D * Math.pow(gamma, i) / (gamma + 1D)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Return the sketch in compact binary form (varint encoded).
+   */
+  public byte[] toBytes() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(32 + 2 * (Math.max(0, maxIndex - minIndex + 1)));
+    out.write(VERSION);
+    long accuracyBits = Double.doubleToLongBits(relativeAccuracy);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      out.write((int) (accuracyBits >>> shift));
+    }
+    writeVarLong(out, maxBuckets);
+    writeVarLong(out, count);
+    writeVarLong(out, zeroCount);
+    writeVarLong(out, max);
+    if (minIndex <= maxIndex) {
+      writeVarLong(out, ((long) minIndex << 1) ^ (minIndex >> 31));
+      writeVarLong(out, maxIndex - minIndex + 1);
+      for (int i = minIndex; i <= maxIndex; i++) {
+        writeVarLong(out, counts[i - offset]);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private void addToIndex(int index, long times) {
+    if (minIndex > maxIndex) {
+      if (counts == null) {
+        counts = new long[maxBuckets];
+      }
+      offset = index;
+      minIndex = index;
+      maxIndex = index;
+    } else if (index < offset) {
+      int newOffset = Math.max(index, maxIndex - maxBuckets + 1);
+      shiftDown(offset - newOffset);
+      offset = newOffset;
+      index = newOffset;
+    } else if (index >= offset + maxBuckets) {
+      int newOffset = index - maxBuckets + 1;
+      shiftUp(newOffset - offset);
+      offset = newOffset;
+      minIndex = Math.max(minIndex, newOffset);
+    }
+    counts[index - offset] += times;
+    if (index < minIndex) {
+      minIndex = index;
+    }
+    if (index > maxIndex) {
+      maxIndex = index;
+    }
+  }
+
+  /**
+   * Move the buckets to higher positions (for a lower offset).
+   */
+  private void shiftDown(int distance) {
+    System.arraycopy(counts, 0, counts, distance, maxBuckets - distance);
+    for (int i = 0; i < distance; i++) {
+      counts[i] = 0;
+    }
+  }
+
+  /**
+   * Move the buckets to lower positions (for a higher offset) collapsing the lowest buckets.
+   */
+  private void shiftUp(int distance) {
+    long collapsed = 0;
+    int keep = Math.max(0, maxBuckets - distance);
+    for (int i = 0; i < maxBuckets - keep; i++) {
+      collapsed += counts[i];
+    }
+    System.arraycopy(counts, maxBuckets - keep, counts, 0, keep);
+    for (int i = keep; i < maxBuckets; i++) {
+      counts[i] = 0;
+    }
+    counts[0] += collapsed;
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
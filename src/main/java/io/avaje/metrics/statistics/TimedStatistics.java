@@ -2,6 +2,9 @@ package io.avaje.metrics.statistics;
 
 /**
  * Statistics collected by TimedMetric.
+ * <p>
+ * The total, max and mean are in microseconds.
+ * </p>
  */
 public interface TimedStatistics extends ValueStatistics {
 
@@ -14,22 +14,24 @@ public interface ValueStatistics extends MetricStatistics {
   long getStartTime();
 
   /**
-   * Return the count of values collected (since the last reset/collection).
+   * Return the count of values recorded since the collecting cursor last collected the metric
+   * (the cursor's delta of the cumulative count).
    */
   long getCount();
 
   /**
-   * Return the total of all the values (since the last reset/collection).
+   * Return the total of the values recorded since the collecting cursor last collected the metric
+   * (the cursor's delta of the cumulative total).
    */
   long getTotal();
 
   /**
-   * Return the Max value collected (since the last reset/collection).
+   * Return the max value recorded since the collecting cursor last collected the metric.
    */
   long getMax();
 
   /**
-   * Return the mean value rounded up for the values collected since the last reset/collection.
+   * Return the mean of the delta total and count rounded up.
    */
   long getMean();
 
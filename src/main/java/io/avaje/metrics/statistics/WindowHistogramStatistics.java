@@ -0,0 +1,57 @@
+package io.avaje.metrics.statistics;
+
+/**
+ * Rolling window statistics that include percentiles over the window.
+ * <p>
+ * Returned by {@link io.avaje.metrics.TimedMetric#getWindowStatistics()} for histogram timed
+ * metrics (those created via <code>MetricManager.histogram(...)</code>). Each slot of the window
+ * holds a fixed memory histogram (like the histogram of the metric itself) and the slots are merged
+ * when queried, so memory is bounded by the number of slots and the percentile values have the
+ * same bounded relative error as {@link HistogramStatistics}.
+ * </p>
+ * <pre>{@code
+ *
+ *   TimedMetric metric = MetricManager.histogram("web.api.orders");
+ *   metric.setWindow(12, 5000);
+ *   ...
+ *
+ *   WindowHistogramStatistics window = (WindowHistogramStatistics) metric.getWindowStatistics();
+ *   long p99 = window.getP99();
+ *
+ * }</pre>
+ */
+public interface WindowHistogramStatistics extends WindowStatistics {
+
+  /**
+   * Return the value at the given percentile (0 to 100) over the window.
+   */
+  long getValueAtPercentile(double percentile);
+
+  /**
+   * Return the median value over the window.
+   */
+  default long getP50() {
+    return getValueAtPercentile(50D);
+  }
+
+  /**
+   * Return the 95th percentile value over the window.
+   */
+  default long getP95() {
+    return getValueAtPercentile(95D);
+  }
+
+  /**
+   * Return the 99th percentile value over the window.
+   */
+  default long getP99() {
+    return getValueAtPercentile(99D);
+  }
+
+  /**
+   * Return the 99.9th percentile value over the window.
+   */
+  default long getP999() {
+    return getValueAtPercentile(99.9D);
+  }
+}
@@ -0,0 +1,21 @@
+package io.avaje.metrics.statistics;
+
+/**
+ * Statistics over a rolling time window (for example the last 60 seconds).
+ * <p>
+ * Unlike the statistics reported on collection these are not reset and can be queried at any
+ * time, for example by a health check or an adaptive load shedder.
+ * </p>
+ * <p>
+ * For histogram metrics these are {@link WindowHistogramStatistics} that include percentiles.
+ * </p>
+ *
+ * @see io.avaje.metrics.TimedMetric#getWindowStatistics()
+ */
+public interface WindowStatistics extends ValueStatistics {
+
+  /**
+   * Return the duration of the window in milliseconds.
+   */
+  long getWindowMillis();
+}
@@ -0,0 +1,107 @@
+package io.avaje.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricNameMatcherTest {
+
+  /**
+   * Expression, name and expected match.
+   */
+  private static final Object[][] CASES = {
+    // exact (no wildcard)
+    {"web.api", "web.api", true},
+    {"web.api", "WEB.API", true},
+    {"WEB.API", "web.api", true},
+    {"web.api", "web.api.x", false},
+    {"web.api", "web.ap", false},
+    {"web.api", "x.web.api", false},
+    // prefix
+    {"web.*", "web.api", true},
+    {"web.*", "WEB.", true},
+    {"web.*", "web", false},
+    {"web.*", "app.web.api", false},
+    // suffix
+    {"*resource", "web.CustomerResource", true},
+    {"*resource", "resource", true},
+    {"*resource", "web.resource.get", false},
+    // contains
+    {"*customer*", "web.customer.get", true},
+    {"*customer*", "customer", true},
+    {"*customer*", "web.cust.get", false},
+    {"web.*customer*", "web.api.Customer.get", true},
+    {"web.*customer*", "app.customer", false},
+    {"web.*customer*resource", "web.customer.CustomerResource", true},
+    {"web.*customer*resource", "web.CustomerResource", true},
+    {"web.*customer*resource", "web.Resource", false},
+    {"web.*customer*resource", "web.resource.customer", false},
+    // prefix and suffix must not overlap
+    {"ab*ba", "aba", false},
+    {"ab*ba", "abba", true},
+    {"ab*ba", "abxba", true},
+    {"a*b*b", "ab", false},
+    {"a*b*b", "abb", true},
+    {"a*b*c*d", "abcd", true},
+    {"a*c*b*d", "abcd", false},
+    // consecutive and leading/trailing wildcards
+    {"web.**api", "web.x.api", true},
+    {"*", "anything", true},
+    {"**", "", true},
+    {"*web*", "web", true},
+  };
+
+  @Test
+  void matches_table() {
+    for (Object[] row : CASES) {
+      String expression = (String) row[0];
+      String name = (String) row[1];
+      boolean expected = (Boolean) row[2];
+      assertEquals(expected, MetricNameMatcher.of(expression).matches(name), "'" + expression + "' vs '" + name + "'");
+    }
+  }
+
+  @Test
+  void matchAll_nullOrEmpty() {
+    assertTrue(MetricNameMatcher.of(null).isMatchAll());
+    assertTrue(MetricNameMatcher.of("").isMatchAll());
+    assertTrue(MetricNameMatcher.of("  ").isMatchAll());
+    assertTrue(MetricNameMatcher.of(null).matches("web.api"));
+    assertFalse(MetricNameMatcher.of("*").isMatchAll());
+  }
+
+  @Test
+  void prefix() {
+    assertEquals("web.", MetricNameMatcher.of("WEB.*customer*").getPrefix());
+    assertEquals("", MetricNameMatcher.of("*resource").getPrefix());
+    assertEquals("web.api", MetricNameMatcher.of("web.api").getPrefix());
+  }
+
+  @Test
+  void matches_independentOfDefaultLocale() {
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(new Locale("tr", "TR"));
+    try {
+      MetricNameMatcher matcher = MetricNameMatcher.of("INFO.*INDEX*");
+      assertEquals("info.", matcher.getPrefix());
+      assertTrue(matcher.matches("info.search.IndexWriter"));
+      assertTrue(matcher.matches("INFO.INDEX"));
+      assertTrue(MetricNameMatcher.of("WEB.API.INFO").matches("web.api.info"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  void of_cached() {
+    MetricNameMatcher matcher = MetricNameMatcher.of("web.*");
+    assertSame(matcher, MetricNameMatcher.of("web.*"));
+    assertEquals("web.*", matcher.getExpression());
+    assertEquals("web.*", matcher.toString());
+  }
+}
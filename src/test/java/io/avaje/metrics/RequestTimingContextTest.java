@@ -0,0 +1,93 @@
+package io.avaje.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RequestTimingContextTest {
+
+  private final RecordingContext context = new RecordingContext(true);
+
+  @Test
+  void wrap_valueReturningLambda() throws Exception {
+    Callable<String> callable = context.wrap(() -> load());
+
+    assertEquals(0, context.attached);
+    assertEquals("loaded", callable.call());
+    assertEquals(1, context.attached);
+    assertEquals(1, context.closed);
+  }
+
+  @Test
+  void wrap_runnable() {
+    int[] ran = new int[1];
+    context.wrap(() -> { ran[0]++; }).run();
+
+    assertEquals(1, ran[0]);
+    assertEquals(1, context.attached);
+    assertEquals(1, context.closed);
+  }
+
+  @Test
+  void wrap_closesScopeWhenTaskThrows() {
+    Callable<String> callable = context.wrap(() -> {
+      throw new IllegalStateException("boom");
+    });
+
+    try {
+      callable.call();
+    } catch (Exception e) {
+      assertEquals("boom", e.getMessage());
+    }
+    assertEquals(1, context.closed);
+  }
+
+  @Test
+  void wrapSupplier() {
+    Supplier<String> supplier = context.wrapSupplier(() -> load());
+
+    assertEquals("loaded", supplier.get());
+    assertEquals(1, context.attached);
+    assertEquals(1, context.closed);
+  }
+
+  @Test
+  void wrap_notActive_returnsTask() {
+    RecordingContext inactive = new RecordingContext(false);
+    Callable<String> callable = () -> load();
+    Supplier<String> supplier = () -> load();
+
+    assertSame(callable, inactive.wrap(callable));
+    assertSame(supplier, inactive.wrapSupplier(supplier));
+  }
+
+  private static String load() {
+    return "loaded";
+  }
+
+  private static final class RecordingContext implements RequestTimingContext {
+
+    private final boolean active;
+    private int attached;
+    private int closed;
+
+    RecordingContext(boolean active) {
+      this.active = active;
+    }
+
+    @Override
+    public boolean isActive() {
+      return active;
+    }
+
+    @Override
+    public Scope attach() {
+      attached++;
+      return () -> closed++;
+    }
+  }
+}
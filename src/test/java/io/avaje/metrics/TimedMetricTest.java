@@ -0,0 +1,219 @@
+package io.avaje.metrics;
+
+import io.avaje.metrics.statistics.MetricStatisticsVisitor;
+import io.avaje.metrics.statistics.WindowStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimedMetricTest {
+
+  private final RecordingTimedMetric metric = new RecordingTimedMetric();
+
+  @Test
+  void timeAsync_success_recordedOnCompletion() {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletionStage<String> stage = metric.timeAsync(() -> future);
+
+    assertSame(future, stage);
+    assertTrue(metric.events.isEmpty());
+
+    future.complete("done");
+    assertEquals(Collections.singletonList(Boolean.TRUE), metric.events);
+  }
+
+  @Test
+  void timeAsync_exceptionalCompletion_recordedAsError() {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    metric.timeAsync(() -> future);
+
+    future.completeExceptionally(new IllegalStateException("failed"));
+    assertEquals(Collections.singletonList(Boolean.FALSE), metric.events);
+  }
+
+  @Test
+  void timeAsync_cancel_recordedAsError() {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletionStage<String> stage = metric.timeAsync(() -> future);
+
+    stage.toCompletableFuture().cancel(true);
+    assertEquals(Collections.singletonList(Boolean.FALSE), metric.events);
+    assertThrows(CancellationException.class, future::join);
+  }
+
+  @Test
+  void timeAsync_alreadyCompleted_recordedImmediately() {
+    CompletionStage<String> stage = metric.timeAsync(() -> CompletableFuture.completedFuture("done"));
+    assertEquals(Collections.singletonList(Boolean.TRUE), metric.events);
+    assertEquals("done", stage.toCompletableFuture().join());
+  }
+
+  @Test
+  void timeAsync_alreadyCompletedExceptionally_recordedImmediately() {
+    CompletableFuture<String> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("failed"));
+
+    metric.timeAsync(() -> failed);
+    assertEquals(Collections.singletonList(Boolean.FALSE), metric.events);
+  }
+
+  @Test
+  void timeAsync_supplierThrows_recordedAsErrorAndRethrown() {
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> metric.timeAsync(() -> {
+      throw new IllegalStateException("supplier");
+    }));
+    assertEquals("supplier", thrown.getMessage());
+    assertEquals(Collections.singletonList(Boolean.FALSE), metric.events);
+  }
+
+  @Test
+  void timeAsync_supplierReturnsNull_recordedAsErrorAndRejected() {
+    assertThrows(NullPointerException.class, () -> metric.timeAsync(() -> null));
+    assertEquals(Collections.singletonList(Boolean.FALSE), metric.events);
+  }
+
+  /**
+   * Records the success flag of each event added via addEventSince.
+   */
+  private static final class RecordingTimedMetric implements TimedMetric {
+
+    final List<Boolean> events = new ArrayList<>();
+
+    @Override
+    public void addEventSince(boolean success, long startNanos) {
+      events.add(success);
+    }
+
+    @Override
+    public MetricName getName() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void collect(MetricStatisticsVisitor collector) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void time(Runnable event) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> T time(Supplier<T> event) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TimedEvent startEvent() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(long startNanos) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(long startNanos, boolean requestTiming) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addErr(long startNanos) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addErr(long startNanos, boolean requestTiming) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addEventDuration(boolean success, long durationNanos) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setWindow(int slots, long slotMillis) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WindowStatistics getWindowStatistics() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isBucket() {
+      return false;
+    }
+
+    @Override
+    public String getBucketRange() {
+      return "";
+    }
+
+    @Override
+    public boolean isRequestTiming() {
+      return false;
+    }
+
+    @Override
+    public void setRequestTiming(int collectionCount) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setRequestTimingSampling(int sampleOneIn, int slowestCount) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getRequestTimingSampleRate() {
+      return 0;
+    }
+
+    @Override
+    public void setRequestTimingThreshold(long thresholdMillis) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getRequestTimingThreshold() {
+      return 0;
+    }
+
+    @Override
+    public int getRequestTiming() {
+      return 0;
+    }
+
+    @Override
+    public void decrementRequestTiming() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, String> attributes() {
+      return Collections.emptyMap();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.avaje.metrics.statistics.TestStats.bucket;
+import static io.avaje.metrics.statistics.TestStats.counter;
+import static io.avaje.metrics.statistics.TestStats.gaugeDouble;
+import static io.avaje.metrics.statistics.TestStats.gaugeLong;
+import static io.avaje.metrics.statistics.TestStats.histogram;
+import static io.avaje.metrics.statistics.TestStats.meter;
+import static io.avaje.metrics.statistics.TestStats.timed;
+import static io.avaje.metrics.statistics.TestStats.value;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricStatisticsEncoderTest {
+
+  private static final Tags NONE = Tags.EMPTY;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  private final MetricStatisticsEncoder encoder = new MetricStatisticsEncoder(Channels.newChannel(out), ByteBuffer.allocate(64));
+
+  private final MetricStatisticsDecoder decoder = new MetricStatisticsDecoder();
+
+  private static List<MetricStatistics> allTypes() {
+    return Arrays.asList(
+      counter("app.log.error", NONE, 7),
+      meter("web.requests", NONE, 42, 1.5, 0.25, -0.5, Double.NaN),
+      gaugeLong("jvm.threads", NONE, -3),
+      gaugeDouble("jvm.load", NONE, 0.75),
+      value("io.bytes", NONE, 2, 50, 40),
+      timed("web.api.orders", NONE, 3, 300, 200),
+      bucket("web.api.foo", NONE, "0-100", 5, 250, 90),
+      bucket("web.api.foo", NONE, "100+", 1, 150, 150),
+      histogram("web.api.hist", NONE, 4, 40, 2000, 500, 950, 990, 999));
+  }
+
+  @Test
+  void roundTrip_allTypes() {
+    List<MetricStatistics> metrics = allTypes();
+    List<MetricStatistics> decoded = decoder.decode(encode(metrics));
+
+    assertEquals(json(metrics), json(decoded));
+    for (MetricStatistics stats : decoded) {
+      if (stats instanceof ValueStatistics) {
+        assertEquals(1_000_000L, ((ValueStatistics) stats).getStartTime());
+      }
+    }
+    MeterStatistics meter = (MeterStatistics) decoded.get(1);
+    assertEquals(-0.5, meter.getFiveMinuteRate());
+    assertTrue(Double.isNaN(meter.getFifteenMinuteRate()));
+
+    TimedStatistics timed = (TimedStatistics) decoded.get(5);
+    assertFalse(timed.isBucket());
+    assertEquals("", timed.getBucketRange());
+    assertEquals("web.api.orders", timed.getNameWithBucket());
+    TimedStatistics bucket = (TimedStatistics) decoded.get(6);
+    assertTrue(bucket.isBucket());
+    assertEquals("web.api.foo;bucket=0-100", bucket.getNameWithBucket());
+  }
+
+  @Test
+  void roundTrip_tags() {
+    Tags ok = Tags.of("status", "200", "region", "eu");
+    Tags error = Tags.of("status", "500", "region", "eu");
+    List<MetricStatistics> metrics = Arrays.asList(
+      counter("web.req", ok, 5),
+      counter("web.req", error, 2),
+      timed("web.api.orders", ok, 3, 300, 200),
+      bucket("web.api.foo", error, "0-100", 5, 250, 90),
+      histogram("web.api.hist", ok, 4, 40, 2000, 500, 950, 990, 999),
+      gaugeLong("jvm.threads", NONE, 3));
+
+    List<MetricStatistics> decoded = decoder.decode(encode(metrics));
+    assertEquals(metrics.size(), decoded.size());
+    for (int i = 0; i < metrics.size(); i++) {
+      assertEquals(metrics.get(i).getTags(), decoded.get(i).getTags());
+    }
+    assertSame(Tags.EMPTY, decoded.get(5).getTags());
+    assertEquals(json(metrics), json(decoded));
+    assertTrue(json(decoded).contains("\"region\""));
+
+    // tag keys and values are dictionary ids on the next report
+    assertEquals(json(metrics), json(decoder.decode(encode(metrics))));
+  }
+
+  @Test
+  void roundTrip_secondReportUsesDictionary() {
+    List<MetricStatistics> metrics = allTypes();
+    ByteBuffer first = encode(metrics);
+    int firstSize = first.remaining();
+    decoder.decode(first);
+
+    ByteBuffer second = encode(metrics);
+    assertTrue(second.remaining() < firstSize / 2, "names are not resent " + second.remaining() + " vs " + firstSize);
+    assertEquals(json(metrics), json(decoder.decode(second)));
+  }
+
+  @Test
+  void resetDictionary_resendsNames() {
+    List<MetricStatistics> metrics = allTypes();
+    encode(metrics);
+    // a new decoder (e.g. collector restart) fails until the dictionary is reset
+    ByteBuffer withoutNames = encode(metrics);
+    assertThrows(IllegalStateException.class, () -> new MetricStatisticsDecoder().decode(withoutNames));
+
+    encoder.resetDictionary();
+    assertEquals(json(metrics), json(new MetricStatisticsDecoder().decode(encode(metrics))));
+  }
+
+  @Test
+  void histogram_withoutSketch_interpolatesEncodedPercentiles() {
+    HistogramStatistics decoded = (HistogramStatistics) decoder.decode(encode(Arrays.asList(
+      histogram("web.api.hist", NONE, 4, 40, 2000, 500, 950, 990, 999)))).get(0);
+
+    assertNull(decoded.getSketch());
+    assertEquals(500, decoded.getValueAtPercentile(50));
+    assertEquals(999, decoded.getValueAtPercentile(99.9));
+    // other percentiles are interpolated between the encoded values
+    assertEquals(500, decoded.getValueAtPercentile(10));
+    assertEquals(600, decoded.getValueAtPercentile(60));
+    assertEquals(970, decoded.getValueAtPercentile(97));
+    assertEquals(1500, decoded.getValueAtPercentile(99.95), 1);
+    assertEquals(2000, decoded.getValueAtPercentile(100));
+  }
+
+  @Test
+  void histogram_withSketch() {
+    QuantileSketch sketch = new QuantileSketch();
+    for (int i = 1; i <= 10_000; i++) {
+      sketch.add(i * 10L);
+    }
+    HistogramStatistics decoded = (HistogramStatistics) decoder.decode(encode(Arrays.asList(
+      histogram("web.api.hist", NONE, sketch)))).get(0);
+
+    assertNotNull(decoded.getSketch());
+    assertEquals(sketch.getCount(), decoded.getSketch().getCount());
+    assertEquals(sketch.getValueAtPercentile(99), decoded.getP99());
+    assertEquals(sketch.getValueAtPercentile(60), decoded.getValueAtPercentile(60));
+    assertEquals(sketch.getValueAtPercentile(99.95), decoded.getValueAtPercentile(99.95));
+  }
+
+  @Test
+  void decode_visitor() {
+    List<MetricStatistics> metrics = allTypes();
+    List<MetricStatistics> visited = new ArrayList<>();
+    decoder.decode(encode(metrics), new MetricStatisticsVisitor() {
+      @Override
+      public void visit(TimedStatistics timed) {
+        visited.add(timed);
+      }
+
+      @Override
+      public void visit(ValueStatistics value) {
+        visited.add(value);
+      }
+
+      @Override
+      public void visit(CounterStatistics counter) {
+        visited.add(counter);
+      }
+
+      @Override
+      public void visit(GaugeDoubleStatistics gauge) {
+        visited.add(gauge);
+      }
+
+      @Override
+      public void visit(GaugeLongStatistics gauge) {
+        visited.add(gauge);
+      }
+    });
+    assertEquals(json(metrics), json(visited));
+  }
+
+  @Test
+  void decode_unsupportedVersion() {
+    ByteBuffer buffer = encode(allTypes());
+    buffer.put(0, (byte) 99);
+    assertThrows(IllegalStateException.class, () -> decoder.decode(buffer));
+  }
+
+  private ByteBuffer encode(List<MetricStatistics> metrics) {
+    out.reset();
+    encoder.begin();
+    for (MetricStatistics stats : metrics) {
+      stats.visit(encoder);
+    }
+    encoder.end();
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  private static String json(List<MetricStatistics> metrics) {
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    MetricStatisticsJsonWriter writer = new MetricStatisticsJsonWriter(Channels.newChannel(json), ByteBuffer.allocate(64));
+    for (MetricStatistics stats : metrics) {
+      stats.visit(writer);
+    }
+    writer.flush();
+    return new String(json.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,270 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static io.avaje.metrics.statistics.TestStats.bucket;
+import static io.avaje.metrics.statistics.TestStats.counter;
+import static io.avaje.metrics.statistics.TestStats.gaugeDouble;
+import static io.avaje.metrics.statistics.TestStats.gaugeLong;
+import static io.avaje.metrics.statistics.TestStats.histogram;
+import static io.avaje.metrics.statistics.TestStats.meter;
+import static io.avaje.metrics.statistics.TestStats.timed;
+import static io.avaje.metrics.statistics.TestStats.value;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricStatisticsPrometheusWriterTest {
+
+  private static final Tags NONE = Tags.EMPTY;
+
+  private static final Tags OK = Tags.of("status", "200");
+
+  private static final Tags ERR = Tags.of("status", "500");
+
+  @Test
+  void counter_prometheus() {
+    assertEquals("# TYPE app_log_error counter\n" +
+        "app_log_error 7\n",
+      write(false, counter("app.log.error", NONE, 7)));
+  }
+
+  @Test
+  void counter_openMetrics() {
+    assertEquals("# TYPE app_log_error counter\n" +
+        "app_log_error_total 7\n" +
+        "# EOF\n",
+      write(true, counter("app.log.error", NONE, 7)));
+  }
+
+  @Test
+  void gauges() {
+    assertEquals("# TYPE jvm_memory_used gauge\n" +
+        "jvm_memory_used 1024\n" +
+        "# TYPE jvm_load gauge\n" +
+        "jvm_load 0.75\n",
+      write(false, gaugeLong("jvm.memory.used", NONE, 1024), gaugeDouble("jvm.load", NONE, 0.75)));
+  }
+
+  @Test
+  void gauges_fullPrecision() {
+    assertEquals("# TYPE small gauge\n" +
+        "small 4.0E-5\n" +
+        "# TYPE ratio gauge\n" +
+        "ratio 0.3333333333333333\n" +
+        "# TYPE whole gauge\n" +
+        "whole -12.5\n",
+      write(false, gaugeDouble("small", NONE, 0.00004), gaugeDouble("ratio", NONE, 1D / 3), gaugeDouble("whole", NONE, -12.5)));
+  }
+
+  @Test
+  void summary_timedAndValue() {
+    assertEquals("# TYPE web_api_orders summary\n" +
+        "web_api_orders_count 3\n" +
+        "web_api_orders_sum 300\n" +
+        "# TYPE web_api_orders_max gauge\n" +
+        "web_api_orders_max 200\n" +
+        "# TYPE io_bytes summary\n" +
+        "io_bytes_count 2\n" +
+        "io_bytes_sum 50\n" +
+        "# TYPE io_bytes_max gauge\n" +
+        "io_bytes_max 40\n",
+      write(false, timed("web.api.orders", NONE, 3, 300, 200), value("io.bytes", NONE, 2, 50, 40)));
+  }
+
+  @Test
+  void summary_histogramQuantiles() {
+    assertEquals("# TYPE web_api summary\n" +
+        "web_api{quantile=\"0.5\"} 500\n" +
+        "web_api{quantile=\"0.95\"} 950\n" +
+        "web_api{quantile=\"0.99\"} 990\n" +
+        "web_api{quantile=\"0.999\"} 999\n" +
+        "web_api_count 4\n" +
+        "web_api_sum 40\n" +
+        "# TYPE web_api_max gauge\n" +
+        "web_api_max 2000\n",
+      write(false, histogram("web.api", NONE, 4, 40, 2000, 500, 950, 990, 999)));
+  }
+
+  @Test
+  void bucketHistogram_cumulativeInMicros() {
+    assertEquals("# TYPE web_api_foo histogram\n" +
+        "web_api_foo_bucket{le=\"100000\"} 5\n" +
+        "web_api_foo_bucket{le=\"200000\"} 8\n" +
+        "web_api_foo_bucket{le=\"+Inf\"} 9\n" +
+        "web_api_foo_count 9\n" +
+        "web_api_foo_sum 1250000\n" +
+        "# TYPE other counter\n" +
+        "other 1\n",
+      write(false,
+        bucket("web.api.foo", NONE, "0-100", 5, 250_000, 90_000),
+        bucket("web.api.foo", NONE, "100-200", 3, 450_000, 190_000),
+        bucket("web.api.foo", NONE, "200+", 1, 550_000, 550_000),
+        counter("other", NONE, 1)));
+  }
+
+  @Test
+  void bucketHistogram_malformedRange_includedInInf() {
+    assertEquals("# TYPE web_api_foo histogram\n" +
+        "web_api_foo_bucket{le=\"100000\"} 5\n" +
+        "web_api_foo_bucket{le=\"300000\"} 10\n" +
+        "web_api_foo_bucket{le=\"+Inf\"} 13\n" +
+        "web_api_foo_count 13\n" +
+        "web_api_foo_sum 1300\n",
+      write(false,
+        bucket("web.api.foo", NONE, "0-100", 5, 500, 90),
+        bucket("web.api.foo", NONE, "100-x", 2, 200, 150),
+        bucket("web.api.foo", NONE, "200-300", 3, 300, 290),
+        bucket("web.api.foo", NONE, "300-", 1, 100, 100),
+        bucket("web.api.foo", NONE, "abc+", 2, 200, 100)));
+  }
+
+  @Test
+  void bucketHistogram_openMetrics_endsBucketsBeforeEof() {
+    assertEquals("# TYPE web_api_foo histogram\n" +
+        "web_api_foo_bucket{le=\"100000\"} 5\n" +
+        "web_api_foo_bucket{le=\"+Inf\"} 6\n" +
+        "web_api_foo_count 6\n" +
+        "web_api_foo_sum 100\n" +
+        "# EOF\n",
+      write(true,
+        bucket("web.api.foo", NONE, "0-100", 5, 50, 20),
+        bucket("web.api.foo", NONE, "100+", 1, 50, 50)));
+  }
+
+  @Test
+  void name_invalidCharacters() {
+    assertEquals("# TYPE _9web_api_x_ counter\n" +
+        "_9web_api_x_ 1\n",
+      write(false, counter("9web.api-xé", NONE, 1)));
+  }
+
+  @Test
+  void tagged_counter() {
+    assertEquals("# TYPE web_req counter\n" +
+        "web_req{status=\"200\"} 5\n" +
+        "web_req{status=\"500\"} 1\n",
+      write(false, counter("web.req", OK, 5), counter("web.req", ERR, 1)));
+  }
+
+  @Test
+  void tagged_meter() {
+    assertEquals("# TYPE web_req counter\n" +
+        "web_req{status=\"200\"} 5\n" +
+        "web_req{status=\"500\"} 1\n" +
+        "# TYPE web_req_rate gauge\n" +
+        "web_req_rate{status=\"200\"} 0.5\n" +
+        "web_req_rate{status=\"500\"} 0.1\n" +
+        "# TYPE web_req_m1_rate gauge\n" +
+        "web_req_m1_rate{status=\"200\"} 1\n" +
+        "web_req_m1_rate{status=\"500\"} 0.2\n" +
+        "# TYPE web_req_m5_rate gauge\n" +
+        "web_req_m5_rate{status=\"200\"} 2\n" +
+        "web_req_m5_rate{status=\"500\"} 0.3\n" +
+        "# TYPE web_req_m15_rate gauge\n" +
+        "web_req_m15_rate{status=\"200\"} 3\n" +
+        "web_req_m15_rate{status=\"500\"} NaN\n",
+      write(false, meter("web.req", OK, 5, 0.5, 1, 2, 3), meter("web.req", ERR, 1, 0.1, 0.2, 0.3, Double.NaN)));
+  }
+
+  @Test
+  void tagged_gauges() {
+    assertEquals("# TYPE pool_active gauge\n" +
+        "pool_active{pool=\"a\"} 3\n" +
+        "pool_active{pool=\"b\"} 4\n" +
+        "# TYPE pool_load gauge\n" +
+        "pool_load{pool=\"a\"} 0.5\n" +
+        "pool_load{pool=\"b\"} 0.25\n",
+      write(false,
+        gaugeLong("pool.active", Tags.of("pool", "a"), 3), gaugeLong("pool.active", Tags.of("pool", "b"), 4),
+        gaugeDouble("pool.load", Tags.of("pool", "a"), 0.5), gaugeDouble("pool.load", Tags.of("pool", "b"), 0.25)));
+  }
+
+  @Test
+  void tagged_timedSummary() {
+    assertEquals("# TYPE web_req summary\n" +
+        "web_req_count{status=\"200\"} 3\n" +
+        "web_req_sum{status=\"200\"} 300\n" +
+        "web_req_count{status=\"500\"} 1\n" +
+        "web_req_sum{status=\"500\"} 50\n" +
+        "# TYPE web_req_max gauge\n" +
+        "web_req_max{status=\"200\"} 200\n" +
+        "web_req_max{status=\"500\"} 50\n" +
+        "# TYPE other counter\n" +
+        "other 1\n",
+      write(false, timed("web.req", OK, 3, 300, 200), timed("web.req", ERR, 1, 50, 50), counter("other", NONE, 1)));
+  }
+
+  @Test
+  void tagged_valueSummary() {
+    assertEquals("# TYPE io_bytes summary\n" +
+        "io_bytes_count{dir=\"in\"} 2\n" +
+        "io_bytes_sum{dir=\"in\"} 50\n" +
+        "io_bytes_count{dir=\"out\"} 1\n" +
+        "io_bytes_sum{dir=\"out\"} 10\n" +
+        "# TYPE io_bytes_max gauge\n" +
+        "io_bytes_max{dir=\"in\"} 40\n" +
+        "io_bytes_max{dir=\"out\"} 10\n",
+      write(false, value("io.bytes", Tags.of("dir", "in"), 2, 50, 40), value("io.bytes", Tags.of("dir", "out"), 1, 10, 10)));
+  }
+
+  @Test
+  void tagged_histogramQuantiles() {
+    assertEquals("# TYPE web_req summary\n" +
+        "web_req{status=\"200\",quantile=\"0.5\"} 5\n" +
+        "web_req{status=\"200\",quantile=\"0.95\"} 9\n" +
+        "web_req{status=\"200\",quantile=\"0.99\"} 9\n" +
+        "web_req{status=\"200\",quantile=\"0.999\"} 9\n" +
+        "web_req_count{status=\"200\"} 2\n" +
+        "web_req_sum{status=\"200\"} 14\n" +
+        "web_req{status=\"500\",quantile=\"0.5\"} 7\n" +
+        "web_req{status=\"500\",quantile=\"0.95\"} 7\n" +
+        "web_req{status=\"500\",quantile=\"0.99\"} 7\n" +
+        "web_req{status=\"500\",quantile=\"0.999\"} 7\n" +
+        "web_req_count{status=\"500\"} 1\n" +
+        "web_req_sum{status=\"500\"} 7\n" +
+        "# TYPE web_req_max gauge\n" +
+        "web_req_max{status=\"200\"} 9\n" +
+        "web_req_max{status=\"500\"} 7\n",
+      write(false, histogram("web.req", OK, 2, 14, 9, 5, 9, 9, 9), histogram("web.req", ERR, 1, 7, 7, 7, 7, 7, 7)));
+  }
+
+  @Test
+  void tagged_bucketHistogram() {
+    assertEquals("# TYPE web_req histogram\n" +
+        "web_req_bucket{status=\"200\",le=\"100000\"} 5\n" +
+        "web_req_bucket{status=\"200\",le=\"+Inf\"} 6\n" +
+        "web_req_count{status=\"200\"} 6\n" +
+        "web_req_sum{status=\"200\"} 100\n" +
+        "web_req_bucket{status=\"500\",le=\"100000\"} 2\n" +
+        "web_req_bucket{status=\"500\",le=\"+Inf\"} 2\n" +
+        "web_req_count{status=\"500\"} 2\n" +
+        "web_req_sum{status=\"500\"} 20\n",
+      write(false,
+        bucket("web.req", OK, "0-100", 5, 50, 20), bucket("web.req", OK, "100+", 1, 50, 50),
+        bucket("web.req", ERR, "0-100", 2, 20, 10), bucket("web.req", ERR, "100+", 0, 0, 0)));
+  }
+
+  @Test
+  void tagged_labelValueEscaped() {
+    assertEquals("# TYPE web_req counter\n" +
+        "web_req{path=\"a\\\"b\\\\c\\nd\",status=\"200\"} 1\n",
+      write(false, counter("web.req", Tags.of("status", "200", "path", "a\"b\\c\nd"), 1)));
+  }
+
+  static String write(boolean openMetrics, MetricStatistics... metrics) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    // small buffer to exercise flushing as it fills
+    MetricStatisticsPrometheusWriter writer = new MetricStatisticsPrometheusWriter(Channels.newChannel(out), ByteBuffer.allocate(64), openMetrics);
+    writer.reset();
+    for (MetricStatistics metric : metrics) {
+      metric.visit(writer);
+    }
+    writer.flush();
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,187 @@
+package io.avaje.metrics.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+  private static final double[] PERCENTILES = {1, 10, 25, 50, 75, 90, 95, 99, 99.9};
+
+  @Test
+  void empty() {
+    QuantileSketch sketch = new QuantileSketch();
+    assertEquals(0, sketch.getCount());
+    assertEquals(0, sketch.getValueAtPercentile(50));
+    assertEquals(0, QuantileSketch.fromBytes(sketch.toBytes()).getCount());
+  }
+
+  @Test
+  void accuracy_againstExactQuantiles() {
+    long[] values = logNormal(new Random(42), 100_000, 1000);
+    QuantileSketch sketch = new QuantileSketch();
+    for (long value : values) {
+      sketch.add(value);
+    }
+    assertEquals(values.length, sketch.getCount());
+    assertWithinAccuracy(sketch, values);
+    long max = Arrays.stream(values).max().getAsLong();
+    assertEquals(max, sketch.getMax());
+    assertEquals(max, sketch.getValueAtPercentile(100));
+  }
+
+  @Test
+  void zeroAndNegativeValues() {
+    QuantileSketch sketch = new QuantileSketch();
+    sketch.add(0, 60);
+    sketch.add(-5, 10);
+    sketch.add(1000, 30);
+    assertEquals(100, sketch.getCount());
+    assertEquals(0, sketch.getValueAtPercentile(50));
+    assertWithin(1000, sketch.getValueAtPercentile(90), QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+  }
+
+  @Test
+  void bytes_roundTrip() {
+    long[] values = logNormal(new Random(7), 10_000, 500);
+    QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+    for (long value : values) {
+      sketch.add(value);
+    }
+    sketch.add(0, 3);
+
+    byte[] content = sketch.toBytes();
+    QuantileSketch copy = QuantileSketch.fromBytes(content);
+
+    assertEquals(sketch.getRelativeAccuracy(), copy.getRelativeAccuracy());
+    assertEquals(sketch.getMaxBuckets(), copy.getMaxBuckets());
+    assertEquals(sketch.getCount(), copy.getCount());
+    assertEquals(sketch.getMax(), copy.getMax());
+    for (double percentile : PERCENTILES) {
+      assertEquals(sketch.getValueAtPercentile(percentile), copy.getValueAtPercentile(percentile));
+    }
+    assertArrayEquals(content, copy.toBytes());
+  }
+
+  @Test
+  void fromBytes_unsupportedVersion() {
+    byte[] content = new QuantileSketch().toBytes();
+    content[0] = 99;
+    assertThrows(IllegalArgumentException.class, () -> QuantileSketch.fromBytes(content));
+  }
+
+  @Test
+  void merge_differentBucketRanges() {
+    Random random = new Random(11);
+    long[] low = logNormal(random, 20_000, 50);
+    long[] high = logNormal(random, 20_000, 500_000);
+
+    QuantileSketch lowSketch = new QuantileSketch();
+    for (long value : low) {
+      lowSketch.add(value);
+    }
+    QuantileSketch highSketch = new QuantileSketch();
+    for (long value : high) {
+      highSketch.add(value);
+    }
+
+    long[] all = new long[low.length + high.length];
+    System.arraycopy(low, 0, all, 0, low.length);
+    System.arraycopy(high, 0, all, low.length, high.length);
+
+    // merge the high range into the low range and the reverse
+    QuantileSketch lowFirst = QuantileSketch.fromBytes(lowSketch.toBytes());
+    lowFirst.merge(highSketch);
+    QuantileSketch highFirst = QuantileSketch.fromBytes(highSketch.toBytes());
+    highFirst.merge(lowSketch);
+
+    assertWithinAccuracy(lowFirst, all);
+    assertWithinAccuracy(highFirst, all);
+
+    List<QuantileSketch> sketches = new ArrayList<>();
+    sketches.add(highSketch);
+    sketches.add(lowSketch);
+    QuantileSketch merged = QuantileSketch.merge(sketches);
+    assertEquals(all.length, merged.getCount());
+    assertWithinAccuracy(merged, all);
+  }
+
+  @Test
+  void merge_differentAccuracy_throws() {
+    QuantileSketch sketch = new QuantileSketch(0.01, 512);
+    assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantileSketch(0.02, 512)));
+  }
+
+  @Test
+  void collapse_keepsHighPercentilesAccurate() {
+    // 64 buckets at 2% covers a range of about 13x so this range forces the lowest buckets to collapse
+    long[] values = new long[100_000];
+    Random random = new Random(3);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1 + random.nextInt(1_000_000);
+    }
+    QuantileSketch sketch = new QuantileSketch(0.02, 64);
+    for (long value : values) {
+      sketch.add(value);
+    }
+    Arrays.sort(values);
+
+    assertEquals(values.length, sketch.getCount());
+    for (double percentile : new double[]{95, 99, 99.9}) {
+      assertWithin(exact(values, percentile), sketch.getValueAtPercentile(percentile), 0.02);
+    }
+    // the low percentiles are collapsed into the lowest retained bucket and so over estimate
+    long collapsed = sketch.getValueAtPercentile(1);
+    assertTrue(collapsed > exact(values, 1) * 5, "low percentiles are degraded by collapse " + collapsed);
+    assertEquals(collapsed, sketch.getValueAtPercentile(5));
+
+    QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+    assertEquals(sketch.getValueAtPercentile(1), copy.getValueAtPercentile(1));
+    assertEquals(sketch.getValueAtPercentile(99), copy.getValueAtPercentile(99));
+  }
+
+  @Test
+  void collapse_whenLowerValueAddedAfterHigh() {
+    QuantileSketch sketch = new QuantileSketch(0.02, 64);
+    sketch.add(1_000_000, 99);
+    // far below the retained range so collapses into the lowest bucket
+    sketch.add(1, 1);
+    assertEquals(100, sketch.getCount());
+    assertWithin(1_000_000, sketch.getValueAtPercentile(99), 0.02);
+    assertTrue(sketch.getValueAtPercentile(0) > 1);
+  }
+
+  private static void assertWithinAccuracy(QuantileSketch sketch, long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double percentile : PERCENTILES) {
+      assertWithin(exact(sorted, percentile), sketch.getValueAtPercentile(percentile), sketch.getRelativeAccuracy());
+    }
+  }
+
+  private static void assertWithin(long expected, long actual, double relativeAccuracy) {
+    // allow 1 for rounding the bucket value to a long
+    double allowed = expected * relativeAccuracy + 1;
+    assertTrue(Math.abs(actual - expected) <= allowed, "expected " + expected + " +/- " + allowed + " but was " + actual);
+  }
+
+  private static long exact(long[] sorted, double percentile) {
+    return sorted[(int) (percentile / 100D * (sorted.length - 1))];
+  }
+
+  private static long[] logNormal(Random random, int size, double median) {
+    long[] values = new long[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = Math.max(1, Math.round(median * Math.exp(random.nextGaussian())));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,283 @@
+package io.avaje.metrics.statistics;
+
+import io.avaje.metrics.Tags;
+
+/**
+ * Statistics used by the writer tests.
+ */
+final class TestStats {
+
+  private TestStats() {
+  }
+
+  static CounterStatistics counter(String name, Tags tags, long count) {
+    return new Counter(name, tags, count);
+  }
+
+  static MeterStatistics meter(String name, Tags tags, long count, double rate, double m1, double m5, double m15) {
+    return new Meter(name, tags, count, rate, m1, m5, m15);
+  }
+
+  static GaugeLongStatistics gaugeLong(String name, Tags tags, long value) {
+    return new GaugeLong(name, tags, value);
+  }
+
+  static GaugeDoubleStatistics gaugeDouble(String name, Tags tags, double value) {
+    return new GaugeDouble(name, tags, value);
+  }
+
+  static ValueStatistics value(String name, Tags tags, long count, long total, long max) {
+    return new Value(name, tags, count, total, max);
+  }
+
+  static TimedStatistics timed(String name, Tags tags, long count, long total, long max) {
+    return new Timed(name, tags, "", count, total, max);
+  }
+
+  static TimedStatistics bucket(String name, Tags tags, String bucketRange, long count, long total, long max) {
+    return new Timed(name, tags, bucketRange, count, total, max);
+  }
+
+  static HistogramStatistics histogram(String name, Tags tags, long count, long total, long max, long p50, long p95, long p99, long p999) {
+    return new Histogram(name, tags, count, total, max, new long[]{p50, p95, p99, p999}, null);
+  }
+
+  static HistogramStatistics histogram(String name, Tags tags, QuantileSketch sketch) {
+    long[] percentiles = {sketch.getValueAtPercentile(50), sketch.getValueAtPercentile(95), sketch.getValueAtPercentile(99), sketch.getValueAtPercentile(99.9)};
+    return new Histogram(name, tags, sketch.getCount(), 0, sketch.getMax(), percentiles, sketch);
+  }
+
+  private abstract static class Base implements MetricStatistics {
+
+    final String name;
+    final Tags tags;
+
+    Base(String name, Tags tags) {
+      this.name = name;
+      this.tags = tags;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Tags getTags() {
+      return tags;
+    }
+
+    public long getStartTime() {
+      return 1_000_000L;
+    }
+  }
+
+  private static class Counter extends Base implements CounterStatistics {
+
+    final long count;
+
+    Counter(String name, Tags tags, long count) {
+      super(name, tags);
+      this.count = count;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class Meter extends Counter implements MeterStatistics {
+
+    final double rate;
+    final double m1;
+    final double m5;
+    final double m15;
+
+    Meter(String name, Tags tags, long count, double rate, double m1, double m5, double m15) {
+      super(name, tags, count);
+      this.rate = rate;
+      this.m1 = m1;
+      this.m5 = m5;
+      this.m15 = m15;
+    }
+
+    @Override
+    public double getRate() {
+      return rate;
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+      return m1;
+    }
+
+    @Override
+    public double getFiveMinuteRate() {
+      return m5;
+    }
+
+    @Override
+    public double getFifteenMinuteRate() {
+      return m15;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class GaugeLong extends Base implements GaugeLongStatistics {
+
+    final long value;
+
+    GaugeLong(String name, Tags tags, long value) {
+      super(name, tags);
+      this.value = value;
+    }
+
+    @Override
+    public long getValue() {
+      return value;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class GaugeDouble extends Base implements GaugeDoubleStatistics {
+
+    final double value;
+
+    GaugeDouble(String name, Tags tags, double value) {
+      super(name, tags);
+      this.value = value;
+    }
+
+    @Override
+    public double getValue() {
+      return value;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static class Value extends Base implements ValueStatistics {
+
+    final long count;
+    final long total;
+    final long max;
+
+    Value(String name, Tags tags, long count, long total, long max) {
+      super(name, tags);
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public long getTotal() {
+      return total;
+    }
+
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public long getMean() {
+      return count == 0 ? 0 : total / count;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static class Timed extends Value implements TimedStatistics {
+
+    final String bucketRange;
+
+    Timed(String name, Tags tags, String bucketRange, long count, long total, long max) {
+      super(name, tags, count, total, max);
+      this.bucketRange = bucketRange;
+    }
+
+    @Override
+    public boolean isBucket() {
+      return !bucketRange.isEmpty();
+    }
+
+    @Override
+    public String getBucketRange() {
+      return bucketRange;
+    }
+
+    @Override
+    public String getNameWithBucket() {
+      return isBucket() ? name + ";bucket=" + bucketRange : name;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class Histogram extends Timed implements HistogramStatistics {
+
+    final long[] percentiles;
+    final QuantileSketch sketch;
+
+    Histogram(String name, Tags tags, long count, long total, long max, long[] percentiles, QuantileSketch sketch) {
+      super(name, tags, "", count, total, max);
+      this.percentiles = percentiles;
+      this.sketch = sketch;
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+      if (sketch != null) {
+        return sketch.getValueAtPercentile(percentile);
+      }
+      if (percentile == 50D) {
+        return percentiles[0];
+      } else if (percentile == 95D) {
+        return percentiles[1];
+      } else if (percentile == 99D) {
+        return percentiles[2];
+      } else if (percentile == 99.9D) {
+        return percentiles[3];
+      }
+      throw new IllegalArgumentException("percentile " + percentile);
+    }
+
+    @Override
+    public QuantileSketch getSketch() {
+      return sketch;
+    }
+
+    @Override
+    public void visit(MetricStatisticsVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+}